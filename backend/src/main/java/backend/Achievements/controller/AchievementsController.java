@@ -3,39 +3,46 @@ package backend.Achievements.controller;
 import backend.exception.ResourceNotFoundException;
 import backend.Achievements.model.AchievementsModel;
 import backend.Achievements.repository.AchievementsRepository;
+import backend.media.ImageVariants;
+import backend.media.MediaResponder;
+import backend.media.MediaStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.UUID;
+import java.util.Objects;
 
 @RestController
 @CrossOrigin("http://localhost:3000")
 public class AchievementsController {
     @Autowired
     private AchievementsRepository achievementsRepository;
+    @Autowired
+    private MediaStore mediaStore;
+    @Autowired
+    private ImageVariants imageVariants;
+    @Autowired
+    private MediaResponder mediaResponder;
     private final Path root = Paths.get("uploads/achievementsPost");
     //Insert
     @PostMapping("/achievements")
     public AchievementsModel newAchievementsModel(@RequestBody AchievementsModel newAchievementsModel) {
-        return achievementsRepository.save(newAchievementsModel);
+        AchievementsModel saved = achievementsRepository.save(newAchievementsModel);
+        mediaStore.acquire(saved.getImageUrl());
+        return saved;
     }
 
     @PostMapping("/achievements/upload")
     public String uploadImage(@RequestParam("file") MultipartFile file) {
         try {
-            String extension = file.getOriginalFilename()
-                    .substring(file.getOriginalFilename().lastIndexOf("."));
-            String filename = UUID.randomUUID() + extension;
-            Files.copy(file.getInputStream(), this.root.resolve(filename));
+            String filename = mediaStore.store(file);
+            imageVariants.generate(ImageVariants.ACHIEVEMENTS, filename, () -> mediaStore.open(filename));
             return filename; // Returns just the random filename
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload image: " + e.getMessage());
@@ -57,6 +64,7 @@ public class AchievementsController {
     AchievementsModel update(@RequestBody AchievementsModel newAchievementsModel, @PathVariable String id) {
         return achievementsRepository.findById(id)
                 .map(achievementsModel -> {
+                    String previousImage = achievementsModel.getImageUrl();
                     achievementsModel.setTitle(newAchievementsModel.getTitle());
                     achievementsModel.setDescription(newAchievementsModel.getDescription());
                     achievementsModel.setPostOwnerID(newAchievementsModel.getPostOwnerID());
@@ -64,25 +72,28 @@ public class AchievementsController {
                     achievementsModel.setDate(newAchievementsModel.getDate());
                     achievementsModel.setCategory(newAchievementsModel.getCategory());
                     achievementsModel.setImageUrl(newAchievementsModel.getImageUrl());
-                    return achievementsRepository.save(achievementsModel);
+                    AchievementsModel saved = achievementsRepository.save(achievementsModel);
+                    if (!Objects.equals(previousImage, saved.getImageUrl())) {
+                        mediaStore.acquire(saved.getImageUrl());
+                        mediaStore.release(previousImage);
+                    }
+                    return saved;
                 }).orElseThrow(() -> new ResourceNotFoundException(id));
     }
 
     @DeleteMapping("/achievements/{id}")
     public void delete(@PathVariable String id) {
-        achievementsRepository.deleteById(id);
+        achievementsRepository.findById(id).ifPresent(achievement -> {
+            achievementsRepository.deleteById(id);
+            mediaStore.release(achievement.getImageUrl());
+        });
     }
 
     @GetMapping("/achievements/images/{filename:.+}")
-    public ResponseEntity<Resource> getImage(@PathVariable String filename) {
-        try {
-            Path file = root.resolve(filename);
-            Resource resource = new UrlResource(file.toUri());
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .body(resource);
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading image: " + e.getMessage());
-        }
+    public void getImage(@PathVariable String filename,
+                         @RequestParam(required = false) Integer w,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        mediaResponder.serveUpload(ImageVariants.ACHIEVEMENTS, filename, root, w, request, response);
     }
 }
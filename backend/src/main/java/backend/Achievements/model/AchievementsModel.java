@@ -2,18 +2,26 @@ package backend.Achievements.model;
 
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "Achievements")
+@CompoundIndex(name = "title_prefix", def = "{'title': 1}", collation = "{'locale': 'en', 'strength': 2}")
 public class AchievementsModel {
     @Id
     @GeneratedValue
     private String id;
+    @Indexed(name = "postOwnerID")
     private String postOwnerID;
     private String postOwnerName;
+    @TextIndexed(weight = 5)
     private String title;
+    @TextIndexed
     private String description;
     private String date;
+    @TextIndexed(weight = 3)
     private String  category;
     private String imageUrl;
     public AchievementsModel() {
@@ -0,0 +1,24 @@
+package backend.Feed.controller;
+
+import backend.Feed.service.FeedService;
+import backend.PostManagement.model.PostSummary;
+import backend.pagination.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/feed")
+@CrossOrigin("http://localhost:3000")
+public class FeedController {
+    @Autowired
+    private FeedService feedService;
+
+    // Posts by the users userId follows, and by userId, newest first
+    @GetMapping("/{userId}")
+    public CursorPage<PostSummary> getFeed(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return feedService.getFeed(userId, cursor, CursorPage.clampLimit(limit));
+    }
+}
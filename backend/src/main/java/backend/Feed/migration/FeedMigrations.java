@@ -0,0 +1,74 @@
+package backend.Feed.migration;
+
+import backend.Feed.service.FeedService;
+import backend.User.model.UserModel;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * One-off data migrations for home timelines. Each step records its progress in the migrations
+ * collection, so running them on every startup is cheap and safe.
+ */
+@Component
+public class FeedMigrations {
+    private static final String MIGRATIONS_COLLECTION = "migrations";
+    private static final String TIMELINES_MIGRATION = "timelineBackfill";
+    private static final int CHECKPOINT_EVERY = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final FeedService feedService;
+
+    public FeedMigrations(MongoTemplate mongoTemplate, FeedService feedService) {
+        this.mongoTemplate = mongoTemplate;
+        this.feedService = feedService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        backfillTimelines();
+    }
+
+    // Timelines are only written when someone posts or follows, so the ones of users from before fan-out
+    // started out empty. Seed every user's timeline from followedUsers, the list feeds are read against, in
+    // _id order with a checkpoint in the migrations collection, so a run cut short resumes where it stopped
+    // and a finished run is not repeated. Entries are upserted, so seeding a timeline twice changes nothing
+    void backfillTimelines() {
+        Query marker = Query.query(Criteria.where("_id").is(TIMELINES_MIGRATION));
+        Document state = mongoTemplate.findOne(marker, Document.class, MIGRATIONS_COLLECTION);
+        if (state != null && state.getBoolean("completed", false)) {
+            return;
+        }
+        Query users = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+        if (state != null && state.getString("checkpoint") != null) {
+            users.addCriteria(Criteria.where("_id").gt(state.getString("checkpoint")));
+        }
+        users.fields().include("followedUsers");
+
+        // Pull authors are merged in when feeds are read and must not be copied; the scheduled refresh may not have run yet
+        feedService.refreshPullAuthors();
+        long seeded = 0;
+        try (var stream = mongoTemplate.stream(users, UserModel.class)) {
+            for (UserModel user : (Iterable<UserModel>) stream::iterator) {
+                feedService.seedTimeline(user.getId(), user.getFollowedUsers() == null ? Set.of() : user.getFollowedUsers());
+                if (++seeded % CHECKPOINT_EVERY == 0) {
+                    // $max, so a slower node running alongside never moves the checkpoint back
+                    mongoTemplate.upsert(marker, new Update().max("checkpoint", user.getId()), MIGRATIONS_COLLECTION);
+                }
+            }
+        }
+        mongoTemplate.upsert(marker, new Update().set("completed", true).set("completedAt", Instant.now()), MIGRATIONS_COLLECTION);
+        if (seeded > 0) {
+            System.out.println("Seeded " + seeded + " timelines");
+        }
+    }
+}
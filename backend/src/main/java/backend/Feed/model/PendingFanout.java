@@ -0,0 +1,52 @@
+package backend.Feed.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A post whose fan-out has not finished yet. Written before the fan-out starts and removed once it
+ * is done, so a fan-out that failed or whose node went away is retried by the sweep.
+ */
+@Document(collection = "feed_pending_fanouts")
+public class PendingFanout {
+    @Id
+    private String id; // The post id
+    private String authorId;
+    @Indexed(name = "createdAt")
+    private Instant createdAt;
+
+    public PendingFanout() {}
+
+    public PendingFanout(String id, String authorId, Instant createdAt) {
+        this.id = id;
+        this.authorId = authorId;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(String authorId) {
+        this.authorId = authorId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,40 @@
+package backend.Feed.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An author with too many followers to fan out to. Their posts are not copied into timelines;
+ * followers' feeds query them directly when read.
+ */
+@Document(collection = "feed_pull_authors")
+public class PullAuthor {
+    @Id
+    private String id; // The author's user id
+    private Instant since;
+
+    public PullAuthor() {}
+
+    public PullAuthor(String id, Instant since) {
+        this.id = id;
+        this.since = since;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getSince() {
+        return since;
+    }
+
+    public void setSince(Instant since) {
+        this.since = since;
+    }
+}
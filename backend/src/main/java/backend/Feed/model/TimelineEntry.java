@@ -0,0 +1,62 @@
+package backend.Feed.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One post in one user's precomputed home timeline. Post ids are ObjectIds, so ordering the
+ * timeline by postId orders it by recency.
+ */
+@Document(collection = "timelines")
+@CompoundIndex(name = "ownerId_postId", def = "{'ownerId': 1, 'postId': -1}", unique = true)
+public class TimelineEntry {
+    @Id
+    private String id;
+    private String ownerId; // Whose timeline this entry is in
+    @Indexed(name = "postId")
+    private String postId;
+    @Indexed(name = "authorId")
+    private String authorId;
+
+    public TimelineEntry() {}
+
+    public TimelineEntry(String ownerId, String postId, String authorId) {
+        this.ownerId = ownerId;
+        this.postId = postId;
+        this.authorId = authorId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getPostId() {
+        return postId;
+    }
+
+    public void setPostId(String postId) {
+        this.postId = postId;
+    }
+
+    public String getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(String authorId) {
+        this.authorId = authorId;
+    }
+}
@@ -0,0 +1,16 @@
+package backend.Feed.repository;
+
+import backend.Feed.model.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface TimelineRepository extends MongoRepository<TimelineEntry, String>, TimelineRepositoryCustom {
+    // Served by the ownerId_postId compound index
+    List<TimelineEntry> findByOwnerIdOrderByPostIdDesc(String ownerId, Pageable pageable);
+    List<TimelineEntry> findByOwnerIdAndPostIdLessThanOrderByPostIdDesc(String ownerId, String postId, Pageable pageable);
+
+    void deleteByPostId(String postId);
+    void deleteByOwnerIdAndAuthorId(String ownerId, String authorId);
+}
@@ -0,0 +1,15 @@
+package backend.Feed.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TimelineRepositoryCustom {
+    // One unordered bulk upsert adding the post to every owner's timeline; entries already there are left alone
+    void addToTimelines(Collection<String> ownerIds, String postId, String authorId);
+
+    // Adds several posts of one author to one timeline, e.g. when starting to follow them
+    void addPostsToTimeline(String ownerId, List<String> postIds, String authorId);
+
+    // Drops everything past the newest maxLength entries of the owner's timeline
+    void trim(String ownerId, int maxLength);
+}
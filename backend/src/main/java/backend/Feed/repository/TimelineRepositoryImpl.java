@@ -0,0 +1,61 @@
+package backend.Feed.repository;
+
+import backend.Feed.model.TimelineEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+public class TimelineRepositoryImpl implements TimelineRepositoryCustom {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void addToTimelines(Collection<String> ownerIds, String postId, String authorId) {
+        if (ownerIds.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TimelineEntry.class);
+        ownerIds.forEach(ownerId -> bulk.upsert(entry(ownerId, postId), onInsert(authorId)));
+        bulk.execute();
+    }
+
+    @Override
+    public void addPostsToTimeline(String ownerId, List<String> postIds, String authorId) {
+        if (postIds.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TimelineEntry.class);
+        postIds.forEach(postId -> bulk.upsert(entry(ownerId, postId), onInsert(authorId)));
+        bulk.execute();
+    }
+
+    @Override
+    public void trim(String ownerId, int maxLength) {
+        // The oldest entry still within the limit; usually there is none and this is the only read
+        Query boundaryQuery = Query.query(Criteria.where("ownerId").is(ownerId))
+                .with(Sort.by(Sort.Direction.DESC, "postId"))
+                .skip(maxLength - 1L)
+                .limit(1);
+        boundaryQuery.fields().include("postId");
+        TimelineEntry boundary = mongoTemplate.findOne(boundaryQuery, TimelineEntry.class);
+        if (boundary != null) {
+            mongoTemplate.remove(Query.query(Criteria.where("ownerId").is(ownerId).and("postId").lt(boundary.getPostId())),
+                    TimelineEntry.class);
+        }
+    }
+
+    private Query entry(String ownerId, String postId) {
+        return Query.query(Criteria.where("ownerId").is(ownerId).and("postId").is(postId));
+    }
+
+    private Update onInsert(String authorId) {
+        return new Update().setOnInsert("authorId", authorId);
+    }
+}
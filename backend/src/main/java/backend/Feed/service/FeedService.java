@@ -0,0 +1,253 @@
+package backend.Feed.service;
+
+import backend.Feed.model.PendingFanout;
+import backend.Feed.model.PullAuthor;
+import backend.Feed.model.TimelineEntry;
+import backend.Feed.repository.TimelineRepository;
+import backend.PostManagement.model.PostManagementModel;
+import backend.PostManagement.model.PostSummary;
+import backend.PostManagement.repository.PostManagementRepository;
+import backend.User.model.FollowEdge;
+import backend.User.model.UserModel;
+import backend.User.repository.FollowRepository;
+import backend.User.repository.UserRepository;
+import backend.pagination.CursorPage;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Home timelines, built by fan-out on write.
+ *
+ * A new post is copied into the timeline of every follower in the background. A post is marked
+ * pending until its fan-out is done, and the sweep retries fan-outs that failed or were cut off.
+ * Timelines are trimmed back to feed.timeline.max-length on about one in feed.timeline.trim-every
+ * writes rather than on every one, so they can briefly run a little longer.
+ * Authors with more than feed.fanout.max-followers followers
+ * become pull authors: their posts are not copied, and feeds merge them in when read instead.
+ * Reading a feed is one range read on the ownerId_postId index, plus one on userID_recency when
+ * the reader follows a pull author.
+ */
+@Service
+public class FeedService {
+    private final TimelineRepository timelineRepository;
+    private final PostManagementRepository postRepository;
+    private final UserRepository userRepository;
+    private final FollowRepository followRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ExecutorService fanout = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxFollowers;
+    private final int maxLength;
+    private final int batchSize;
+    private final int backfill;
+    private final int trimEvery;
+    private final Duration retryAfter;
+    private volatile Set<String> pullAuthors = Set.of();
+
+    public FeedService(TimelineRepository timelineRepository,
+                       PostManagementRepository postRepository,
+                       UserRepository userRepository,
+                       FollowRepository followRepository,
+                       MongoTemplate mongoTemplate,
+                       @Value("${feed.fanout.max-followers:10000}") int maxFollowers,
+                       @Value("${feed.timeline.max-length:800}") int maxLength,
+                       @Value("${feed.fanout.batch-size:1000}") int batchSize,
+                       @Value("${feed.follow.backfill:50}") int backfill,
+                       @Value("${feed.timeline.trim-every:50}") int trimEvery,
+                       @Value("${feed.fanout.retry-after:PT1M}") Duration retryAfter) {
+        this.timelineRepository = timelineRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.followRepository = followRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.maxFollowers = maxFollowers;
+        this.maxLength = maxLength;
+        this.batchSize = batchSize;
+        this.backfill = backfill;
+        this.trimEvery = trimEvery;
+        this.retryAfter = retryAfter;
+    }
+
+    // Post cards as for GET /posts, with the reader as the viewer
+    public CursorPage<PostSummary> getFeed(String userId, String cursor, int limit) {
+        Set<String> followed = userRepository.findFollowedUsersById(userId)
+                .map(UserModel::getFollowedUsers)
+                .orElse(Set.of());
+        Set<String> pulled = followed.stream().filter(pullAuthors::contains).collect(Collectors.toSet());
+        String position = cursor == null || cursor.isBlank() ? null : CursorPage.decodeObjectId(cursor);
+        List<PostSummary> items = new ArrayList<>(limit);
+
+        // Entries that turn out stale are skipped, so keep reading until the page is full or there is nothing older
+        while (true) {
+            int wanted = limit - items.size();
+            Pageable pageable = PageRequest.of(0, wanted + 1);
+
+            // Candidate post id -> author, newest first: the precomputed timeline merged with posts of followed pull authors
+            TreeMap<String, String> candidates = new TreeMap<>(Comparator.reverseOrder());
+            List<TimelineEntry> entries = position == null
+                    ? timelineRepository.findByOwnerIdOrderByPostIdDesc(userId, pageable)
+                    : timelineRepository.findByOwnerIdAndPostIdLessThanOrderByPostIdDesc(userId, position, pageable);
+            entries.forEach(entry -> candidates.put(entry.getPostId(), entry.getAuthorId()));
+            if (!pulled.isEmpty()) {
+                postRepository.findSummaries(pulled, position, null, wanted + 1)
+                        .forEach(post -> candidates.put(post.getId(), post.getUserID()));
+            }
+
+            List<Map.Entry<String, String>> page = candidates.entrySet().stream().limit(wanted).toList();
+            List<String> ids = page.stream()
+                    // Entries of users unfollowed since are skipped until they are cleaned up
+                    .filter(candidate -> candidate.getValue().equals(userId) || followed.contains(candidate.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            // Posts deleted since they were fanned out simply drop out of the page
+            Map<String, PostSummary> posts = postRepository.findSummariesByIdIn(ids, userId).stream()
+                    .collect(Collectors.toMap(PostSummary::getId, Function.identity()));
+            ids.stream().map(posts::get).filter(post -> post != null).forEach(items::add);
+
+            if (candidates.size() <= wanted) {
+                return new CursorPage<>(items, null);
+            }
+            // The cursor follows what was read, not what was kept, so skipped entries never end the feed early
+            position = page.get(page.size() - 1).getKey();
+            if (items.size() == limit) {
+                return new CursorPage<>(items, CursorPage.encode(position));
+            }
+        }
+    }
+
+    // Returns immediately; the fan-out runs in the background and is retried by the sweep if it fails
+    public void onPostCreated(PostManagementModel post) {
+        mongoTemplate.save(new PendingFanout(post.getId(), post.getUserID(), Instant.now()));
+        fanout.execute(() -> fanOutPending(post.getId(), post.getUserID()));
+    }
+
+    // Retries fan-outs still pending well after they started: failed ones, and ones whose node went away
+    @Scheduled(fixedDelayString = "${feed.fanout.retry-after:PT1M}", initialDelayString = "${feed.fanout.retry-after:PT1M}")
+    public void retryPendingFanouts() {
+        Query stale = Query.query(Criteria.where("createdAt").lt(Instant.now().minus(retryAfter)));
+        for (PendingFanout pending : mongoTemplate.find(stale, PendingFanout.class)) {
+            if (postRepository.existsById(pending.getId())) {
+                fanOutPending(pending.getId(), pending.getAuthorId());
+            } else {
+                mongoTemplate.remove(pending);
+            }
+        }
+    }
+
+    public void onPostDeleted(String postId) {
+        timelineRepository.deleteByPostId(postId);
+    }
+
+    // Brings the followed user's recent posts into the follower's timeline
+    public void onFollow(String userId, String followedId) {
+        if (pullAuthors.contains(followedId)) {
+            return;
+        }
+        addRecentPosts(userId, followedId);
+        maybeTrim(userId);
+    }
+
+    // Fills a timeline from before fan-out: the owner's own recent posts plus what following each user would bring in
+    public void seedTimeline(String userId, Collection<String> followedIds) {
+        addRecentPosts(userId, userId);
+        followedIds.stream()
+                .filter(followedId -> !pullAuthors.contains(followedId))
+                .forEach(followedId -> addRecentPosts(userId, followedId));
+        timelineRepository.trim(userId, maxLength);
+    }
+
+    public void onUnfollow(String userId, String unfollowedId) {
+        timelineRepository.deleteByOwnerIdAndAuthorId(userId, unfollowedId);
+    }
+
+    @Scheduled(fixedDelayString = "${feed.pull-authors.refresh:PT1M}")
+    public void refreshPullAuthors() {
+        pullAuthors = mongoTemplate.findAll(PullAuthor.class).stream()
+                .map(PullAuthor::getId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanout.shutdown();
+    }
+
+    // Fan-out is idempotent, so running it again for a post that is partly delivered is safe
+    private void fanOutPending(String postId, String authorId) {
+        try {
+            fanOut(postId, authorId);
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(postId)), PendingFanout.class);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to fan out post " + postId + ", will retry: " + e.getMessage());
+        }
+    }
+
+    private void fanOut(String postId, String authorId) {
+        // The author sees their own posts too
+        timelineRepository.addToTimelines(List.of(authorId), postId, authorId);
+        maybeTrim(authorId);
+
+        if (pullAuthors.contains(authorId)) {
+            return;
+        }
+        if (followRepository.countByFolloweeId(authorId) > maxFollowers) {
+            mongoTemplate.save(new PullAuthor(authorId, Instant.now()));
+            refreshPullAuthors();
+            return;
+        }
+
+        try (Stream<FollowEdge> followers = followRepository.streamByFolloweeId(authorId)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            followers.forEach(follower -> {
+                batch.add(follower.getFollowerId());
+                if (batch.size() == batchSize) {
+                    deliver(batch, postId, authorId);
+                    batch.clear();
+                }
+            });
+            deliver(batch, postId, authorId);
+        }
+    }
+
+    private void deliver(List<String> ownerIds, String postId, String authorId) {
+        timelineRepository.addToTimelines(new HashSet<>(ownerIds), postId, authorId);
+        ownerIds.forEach(this::maybeTrim);
+    }
+
+    private void addRecentPosts(String ownerId, String authorId) {
+        List<String> recent = postRepository.findRecentIdsByUserID(authorId, PageRequest.of(0, backfill)).stream()
+                .map(PostManagementModel::getId)
+                .toList();
+        timelineRepository.addPostsToTimeline(ownerId, recent, authorId);
+    }
+
+    // Trimming costs an index walk per timeline, so it only runs on a random one in trimEvery writes
+    private void maybeTrim(String ownerId) {
+        if (ThreadLocalRandom.current().nextInt(trimEvery) == 0) {
+            timelineRepository.trim(ownerId, maxLength);
+        }
+    }
+}
@@ -3,26 +3,31 @@ package backend.LearningPlan.controller;
 import backend.exception.ResourceNotFoundException;
 import backend.exception.ResourceNotFoundException;
 import backend.LearningPlan.model.LearningPlanModel;
-import backend.Notification.model.NotificationModel;
 import backend.LearningPlan.repository.LearningPlanRepository;
-import backend.Notification.repository.NotificationRepository;
-import backend.User.repository.UserRepository;
+import backend.User.cache.UserNameCache;
+import backend.User.model.UserSummary;
+import backend.media.ImageVariants;
+import backend.media.MediaResponder;
+import backend.media.MediaStore;
+import backend.pagination.CursorPage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.scheduling.annotation.Scheduled;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.nio.file.Files;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
 
 @RestController
 @CrossOrigin("http://localhost:3000")
@@ -31,10 +36,14 @@ public class LearningPlanController {
     private LearningPlanRepository learningPlanRepository;
     private final Path root = Paths.get("uploads/plan");
     @Autowired
-    private UserRepository userRepository;
-
+    private UserNameCache userNameCache;
+    @Autowired
+    private MediaStore mediaStore;
     @Autowired
-    private NotificationRepository notificationRepository;
+    private ImageVariants imageVariants;
+    @Autowired
+    private MediaResponder mediaResponder;
+
 
     //Insert
     @PostMapping("/learningPlan")
@@ -43,9 +52,8 @@ public class LearningPlanController {
         if (newLearningPlanModel.getPostOwnerID() == null || newLearningPlanModel.getPostOwnerID().isEmpty()) {
             throw new IllegalArgumentException("PostOwnerID is required."); // Ensure postOwnerID is provided
         }
-        // Fetch user's full name from UserRepository
-        String postOwnerName = userRepository.findById(newLearningPlanModel.getPostOwnerID())
-                .map(user -> user.getFullname())
+        // Fetch user's full name through the user name cache
+        String postOwnerName = userNameCache.getFullname(newLearningPlanModel.getPostOwnerID())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found for ID: " + newLearningPlanModel.getPostOwnerID()));
         newLearningPlanModel.setPostOwnerName(postOwnerName);
 
@@ -53,16 +61,16 @@ public class LearningPlanController {
         String currentDateTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
         newLearningPlanModel.setCreatedAt(currentDateTime);
 
-        return learningPlanRepository.save(newLearningPlanModel); 
+        LearningPlanModel saved = learningPlanRepository.save(newLearningPlanModel);
+        mediaStore.acquire(saved.getImageUrl());
+        return saved;
     }
 
     @PostMapping("/learningPlan/planUpload")
     public String uploadImage(@RequestParam("file") MultipartFile file) {
         try {
-            String extension = file.getOriginalFilename()
-                    .substring(file.getOriginalFilename().lastIndexOf("."));
-            String filename = UUID.randomUUID() + extension;
-            Files.copy(file.getInputStream(), this.root.resolve(filename));
+            String filename = mediaStore.store(file);
+            imageVariants.generate(ImageVariants.PLANS, filename, () -> mediaStore.open(filename));
             return filename;
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload image: " + e.getMessage());
@@ -70,17 +78,41 @@ public class LearningPlanController {
     }
 
     @GetMapping("/learningPlan")
-    List<LearningPlanModel> getAll() {
-        List<LearningPlanModel> posts = learningPlanRepository.findAll();
-        posts.forEach(post -> {
-            if (post.getPostOwnerID() != null) {
-                String postOwnerName = userRepository.findById(post.getPostOwnerID())
-                        .map(user -> user.getFullname())
-                        .orElse("Unknown User");
-                post.setPostOwnerName(postOwnerName);
-            }
-        });
-        return posts;
+    CursorPage<LearningPlanModel> getAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<LearningPlanModel> plans;
+        if (cursor == null || cursor.isBlank()) {
+            plans = learningPlanRepository.findAllByOrderByIdDesc(pageable);
+        } else {
+            plans = learningPlanRepository.findByIdLessThanOrderByIdDesc(CursorPage.decodeObjectId(cursor), pageable);
+        }
+        CursorPage<LearningPlanModel> page = CursorPage.of(plans, pageSize, LearningPlanModel::getId);
+        refreshOwnerNames(page.getItems());
+        return page;
+    }
+
+    @GetMapping("/learningPlan/user/{postOwnerID}")
+    CursorPage<LearningPlanModel> getByOwner(
+            @PathVariable String postOwnerID,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<LearningPlanModel> plans;
+        if (cursor == null || cursor.isBlank()) {
+            plans = learningPlanRepository.findByPostOwnerIDOrderByIdDesc(postOwnerID, pageable);
+        } else {
+            plans = learningPlanRepository.findByPostOwnerIDAndIdLessThanOrderByIdDesc(
+                    postOwnerID, CursorPage.decodeObjectId(cursor), pageable);
+        }
+        CursorPage<LearningPlanModel> page = CursorPage.of(plans, pageSize, LearningPlanModel::getId);
+        refreshOwnerNames(page.getItems());
+        return page;
     }
 
     @GetMapping("/learningPlan/{id}")
@@ -88,8 +120,7 @@ public class LearningPlanController {
         LearningPlanModel post = learningPlanRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException(id));
         if (post.getPostOwnerID() != null) {
-            String postOwnerName = userRepository.findById(post.getPostOwnerID())
-                    .map(user -> user.getFullname())
+            String postOwnerName = userNameCache.getFullname(post.getPostOwnerID())
                     .orElse("Unknown User");
             post.setPostOwnerName(postOwnerName);
         }
@@ -100,6 +131,7 @@ public class LearningPlanController {
     LearningPlanModel update(@RequestBody LearningPlanModel newLearningPlanModel, @PathVariable String id) {
         return learningPlanRepository.findById(id)
                 .map(learningPlanModel -> {
+                    String previousImage = learningPlanModel.getImageUrl();
                     learningPlanModel.setTitle(newLearningPlanModel.getTitle());
                     learningPlanModel.setDescription(newLearningPlanModel.getDescription());
                     learningPlanModel.setContentURL(newLearningPlanModel.getContentURL());
@@ -112,64 +144,49 @@ public class LearningPlanController {
                     if (newLearningPlanModel.getPostOwnerID() != null && !newLearningPlanModel.getPostOwnerID().isEmpty()) {
                         learningPlanModel.setPostOwnerID(newLearningPlanModel.getPostOwnerID());
                         // Fetch and update the real name of the post owner
-                        String postOwnerName = userRepository.findById(newLearningPlanModel.getPostOwnerID())
-                                .map(user -> user.getFullname())
+                        String postOwnerName = userNameCache.getFullname(newLearningPlanModel.getPostOwnerID())
                                 .orElseThrow(() -> new ResourceNotFoundException("User not found for ID: " + newLearningPlanModel.getPostOwnerID()));
                         learningPlanModel.setPostOwnerName(postOwnerName);
                     }
                     
                     learningPlanModel.setTemplateID(newLearningPlanModel.getTemplateID()); // Update templateID
-                    return learningPlanRepository.save(learningPlanModel);
+                    LearningPlanModel saved = learningPlanRepository.save(learningPlanModel);
+                    if (!Objects.equals(previousImage, saved.getImageUrl())) {
+                        mediaStore.acquire(saved.getImageUrl());
+                        mediaStore.release(previousImage);
+                    }
+                    return saved;
                 }).orElseThrow(() -> new ResourceNotFoundException(id));
     }
 
     @DeleteMapping("/learningPlan/{id}")
     public void delete(@PathVariable String id) {
-        learningPlanRepository.deleteById(id);
+        learningPlanRepository.findById(id).ifPresent(plan -> {
+            learningPlanRepository.deleteById(id);
+            mediaStore.release(plan.getImageUrl());
+        });
     }
 
     @GetMapping("/learningPlan/planImages/{filename:.+}")
-    public ResponseEntity<Resource> getImage(@PathVariable String filename) {
-        try {
-            Path file = root.resolve(filename);
-            Resource resource = new UrlResource(file.toUri());
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .body(resource);
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading image: " + e.getMessage());
-        }
+    public void getImage(@PathVariable String filename,
+                         @RequestParam(required = false) Integer w,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        mediaResponder.serveUpload(ImageVariants.PLANS, filename, root, w, request, response);
     }
 
-    @Scheduled(cron = "0 0 0 * * ?") // Runs daily at midnight
-    public void sendExpiryNotifications() {
-        List<LearningPlanModel> plans = learningPlanRepository.findAll();
-        String currentDate = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+    // Resolves the owners of a whole page with one batched lookup instead of one findById per plan
+    private void refreshOwnerNames(List<LearningPlanModel> plans) {
+        Set<String> ownerIds = plans.stream()
+                .map(LearningPlanModel::getPostOwnerID)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, UserSummary> owners = userNameCache.getAll(ownerIds);
 
         plans.forEach(plan -> {
-            if (plan.getEndDate() != null && plan.getPostOwnerID() != null) {
-                try {
-                    LocalDateTime endDate = LocalDateTime.parse(plan.getEndDate(), DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                    LocalDateTime threeDaysBefore = endDate.minusDays(3);
-
-                    if (threeDaysBefore.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")).equals(currentDate)) {
-                        // Check if a notification already exists for this plan and user
-                        boolean notificationExists = notificationRepository.findByUserId(plan.getPostOwnerID())
-                                .stream()
-                                .anyMatch(notification -> notification.getMessage().contains(plan.getTitle()));
-
-                        if (!notificationExists) {
-                            NotificationModel notification = new NotificationModel();
-                            notification.setUserId(plan.getPostOwnerID());
-                            notification.setMessage("Your learning plan \"" + plan.getTitle() + "\" will expire soon.");
-                            notification.setCreatedAt(currentDate);
-                            notification.setRead(false);
-                            notificationRepository.save(notification);
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error processing plan with ID: " + plan.getId() + ". Error: " + e.getMessage());
-                }
+            if (plan.getPostOwnerID() != null) {
+                UserSummary owner = owners.get(plan.getPostOwnerID());
+                plan.setPostOwnerName(owner != null ? owner.getFullname() : "Unknown User");
             }
         });
     }
@@ -0,0 +1,152 @@
+package backend.LearningPlan.job;
+
+import backend.LearningPlan.model.LearningPlanModel;
+import backend.LearningPlan.repository.LearningPlanRepository;
+import backend.Notification.model.NotificationModel;
+import backend.Notification.service.NotificationService;
+import backend.jobs.JobLease;
+import backend.jobs.JobLeases;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Warns plan owners three days before their learning plan ends.
+ *
+ * The day's work is split into contiguous plan id ranges of roughly equal size, fixed by the
+ * first node to start the run. Every node tries to lease every partition, so the partitions
+ * spread over the live nodes, none is processed twice and each one only reads its own range.
+ * Progress is checkpointed per batch; the periodic sweep picks up partitions whose owner
+ * died once their lease expires, and continues after the checkpoint.
+ */
+@Component
+public class PlanExpiryJob {
+    private static final String JOB_NAME = "planExpiry";
+    private static final String MIN_OBJECT_ID = "000000000000000000000000";
+    private static final String MAX_OBJECT_ID = "ffffffffffffffffffffffff";
+
+    private final LearningPlanRepository learningPlanRepository;
+    private final NotificationService notificationService;
+    private final JobLeases jobLeases;
+    private final int partitions;
+    private final int batchSize;
+    private final Timer partitionTimer;
+    private final DistributionSummary throughput;
+
+    public PlanExpiryJob(LearningPlanRepository learningPlanRepository,
+                         NotificationService notificationService,
+                         JobLeases jobLeases,
+                         MeterRegistry meterRegistry,
+                         @Value("${jobs.plan-expiry.partitions:8}") int partitions,
+                         @Value("${jobs.plan-expiry.batch-size:200}") int batchSize) {
+        this.learningPlanRepository = learningPlanRepository;
+        this.notificationService = notificationService;
+        this.jobLeases = jobLeases;
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.partitionTimer = Timer.builder("jobs.plan_expiry.partition.duration")
+                .description("Time to process one partition of the plan expiry job")
+                .register(meterRegistry);
+        this.throughput = DistributionSummary.builder("jobs.plan_expiry.throughput")
+                .description("Plans processed per second by one partition run")
+                .baseUnit("plans/s")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "0 0 0 * * ?") // Runs daily at midnight
+    public void sendExpiryNotifications() {
+        run(LocalDate.now());
+    }
+
+    // Resumes partitions left unfinished by a node that went away, and covers a missed midnight
+    @Scheduled(fixedDelayString = "${jobs.plan-expiry.sweep-interval:PT10M}", initialDelayString = "${jobs.plan-expiry.sweep-interval:PT10M}")
+    public void sweep() {
+        run(LocalDate.now());
+    }
+
+    void run(LocalDate runDate) {
+        LocalDate expiryDate = runDate.plusDays(3);
+        List<String> bounds = jobLeases.partitionBounds(JOB_NAME, runDate.toString(), () -> partitionBounds(expiryDate));
+        for (int partition = 0; partition < bounds.size() - 1; partition++) {
+            JobLease lease = jobLeases.tryAcquire(JOB_NAME, runDate.toString(), partition);
+            if (lease != null) {
+                String upToId = bounds.get(partition + 1);
+                String fromId = bounds.get(partition);
+                long started = System.nanoTime();
+                long processed = partitionTimer.record(() -> processPartition(lease, expiryDate, fromId, upToId));
+                double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-3);
+                throughput.record(processed / seconds);
+            }
+        }
+    }
+
+    // Partition p covers bounds[p] < _id <= bounds[p + 1]. The inner bounds are every n-th id expiring that day,
+    // read from the endDate_id index; plans added later still fall into exactly one range
+    List<String> partitionBounds(LocalDate expiryDate) {
+        long total = learningPlanRepository.countByEndDate(expiryDate);
+        int count = (int) Math.max(1, Math.min(partitions, total));
+        List<String> bounds = new ArrayList<>(count + 1);
+        bounds.add(MIN_OBJECT_ID);
+        for (int partition = 1; partition < count; partition++) {
+            long offset = total * partition / count - 1;
+            List<LearningPlanModel> boundary = learningPlanRepository.findIdsByEndDate(expiryDate, PageRequest.of((int) offset, 1));
+            if (boundary.isEmpty()) {
+                break;
+            }
+            bounds.add(boundary.get(0).getId());
+        }
+        bounds.add(MAX_OBJECT_ID);
+        return bounds;
+    }
+
+    private long processPartition(JobLease lease, LocalDate expiryDate, String fromId, String upToId) {
+        String checkpoint = lease.getCheckpoint() != null ? lease.getCheckpoint() : fromId;
+        long processed = 0;
+
+        while (true) {
+            List<LearningPlanModel> batch = learningPlanRepository.findExpiringBetween(
+                    expiryDate, checkpoint, upToId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<NotificationModel> notifications = batch.stream()
+                    .map(this::toNotification)
+                    .collect(Collectors.toList());
+            notificationService.sendAllOnce(notifications);
+
+            processed += notifications.size();
+            checkpoint = batch.get(batch.size() - 1).getId();
+            if (!jobLeases.checkpoint(lease, checkpoint, notifications.size())) {
+                // Another node took the partition over; it continues from our last checkpoint
+                return processed;
+            }
+        }
+
+        jobLeases.complete(lease);
+        return processed;
+    }
+
+    private NotificationModel toNotification(LearningPlanModel plan) {
+        NotificationModel notification = new NotificationModel();
+        notification.setUserId(plan.getPostOwnerID());
+        notification.setMessage("Your learning plan \"" + plan.getTitle() + "\" will expire soon.");
+        notification.setCreatedAt(Instant.now());
+        notification.setRead(false);
+        notification.setType(NotificationModel.TYPE_PLAN_EXPIRY);
+        notification.setTargetId(plan.getId());
+        // Unique per plan and end date, so reruns and re-deliveries are dropped by the index
+        notification.setDedupeKey("planExpiry:" + plan.getId() + ":" + plan.getEndDate());
+        return notification;
+    }
+}
@@ -0,0 +1,46 @@
+package backend.LearningPlan.migration;
+
+import backend.LearningPlan.model.LearningPlanModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * One-off data migrations for the LearningPlan collection. Each step only touches documents
+ * that have not been migrated yet, so running them on every startup is cheap and safe.
+ */
+@Component
+public class LearningPlanMigrations {
+    private final MongoTemplate mongoTemplate;
+
+    public LearningPlanMigrations(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        convertEndDates();
+    }
+
+    // endDate used to be a "yyyy-MM-dd" string. Parse it in the JVM's zone, matching how
+    // Spring Data maps LocalDate to a BSON date; unparseable values become null.
+    void convertEndDates() {
+        Document parseEndDate = new Document("$set", new Document("endDate",
+                new Document("$dateFromString", new Document("dateString", "$endDate")
+                        .append("format", "%Y-%m-%d")
+                        .append("timezone", ZoneId.systemDefault().getId())
+                        .append("onError", null))));
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(LearningPlanModel.class))
+                .updateMany(Filters.type("endDate", "string"), List.of(parseEndDate));
+        if (result.getModifiedCount() > 0) {
+            System.out.println("Converted endDate to a date on " + result.getModifiedCount() + " learning plans");
+        }
+    }
+}
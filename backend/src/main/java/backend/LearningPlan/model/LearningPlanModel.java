@@ -2,21 +2,30 @@ package backend.LearningPlan.model;
 
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Document(collection = "LearningPlan")
+@CompoundIndex(name = "postOwnerID_recency", def = "{'postOwnerID': 1, '_id': -1}")
+@CompoundIndex(name = "endDate_id", def = "{'endDate': 1, '_id': 1}")
+@CompoundIndex(name = "title_prefix", def = "{'title': 1}", collation = "{'locale': 'en', 'strength': 2}")
 public class LearningPlanModel {
     @Id
     @GeneratedValue
     private String id;
+    @TextIndexed(weight = 5)
     private String title;
+    @TextIndexed
     private String description;
     private String contentURL;
+    @TextIndexed(weight = 3)
     private List<String> tags;
     private String postOwnerID; // Use postOwnerID consistently
     private String postOwnerName;
@@ -24,7 +33,8 @@ public class LearningPlanModel {
     private String imageUrl;
     private int templateID; // New field for templateID
     private String startDate; // New field
-    private String endDate;   // New field
+    private LocalDate endDate; // Stored as a BSON date so the expiry job can query it
+    @TextIndexed(weight = 3)
     private String category;  // New field
 
     public LearningPlanModel() {
@@ -128,11 +138,11 @@ public class LearningPlanModel {
         this.startDate = startDate;
     }
 
-    public String getEndDate() {
+    public LocalDate getEndDate() {
         return endDate;
     }
 
-    public void setEndDate(String endDate) {
+    public void setEndDate(LocalDate endDate) {
         this.endDate = endDate;
     }
 
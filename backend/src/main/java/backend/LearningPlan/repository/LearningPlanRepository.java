@@ -1,11 +1,36 @@
 package backend.LearningPlan.repository;
 
 import backend.LearningPlan.model.LearningPlanModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDate;
 import java.util.List;
 
 public interface LearningPlanRepository extends MongoRepository<LearningPlanModel, String> {
     void deleteByPostOwnerID(String postOwnerID);
     List<LearningPlanModel> findByPostOwnerID(String postOwnerID);
     List<LearningPlanModel> findByPostOwnerName(String postOwnerName); // New method
+
+    // Keyset pagination over _id, newest first
+    List<LearningPlanModel> findAllByOrderByIdDesc(Pageable pageable);
+    List<LearningPlanModel> findByIdLessThanOrderByIdDesc(String id, Pageable pageable);
+
+    // Served by the postOwnerID_recency compound index
+    List<LearningPlanModel> findByPostOwnerIDOrderByIdDesc(String postOwnerID, Pageable pageable);
+    List<LearningPlanModel> findByPostOwnerIDAndIdLessThanOrderByIdDesc(String postOwnerID, String id, Pageable pageable);
+
+    // Expiry job: one batch of the plans ending on endDate with afterId < _id <= upToId, with only
+    // the fields the notification needs. Served by the endDate_id compound index
+    @Query(value = "{ 'endDate': ?0, '_id': { $gt: ?1, $lte: ?2 }, 'postOwnerID': { $ne: null } }",
+            fields = "{ 'title': 1, 'postOwnerID': 1, 'endDate': 1 }",
+            sort = "{ '_id': 1 }")
+    List<LearningPlanModel> findExpiringBetween(LocalDate endDate, String afterId, String upToId, Pageable pageable);
+
+    // Expiry job partitioning: both answered from the endDate_id index alone
+    long countByEndDate(LocalDate endDate);
+
+    @Query(value = "{ 'endDate': ?0 }", fields = "{ '_id': 1 }", sort = "{ '_id': 1 }")
+    List<LearningPlanModel> findIdsByEndDate(LocalDate endDate, Pageable pageable);
 }
@@ -2,11 +2,15 @@ package backend.Notification.controller;
 
 import backend.Notification.model.NotificationModel;
 import backend.Notification.repository.NotificationRepository;
+import backend.Notification.stream.NotificationStreams;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/notifications")
@@ -15,18 +19,39 @@ public class NotificationController {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private NotificationStreams notificationStreams;
+
     @GetMapping("/{userId}")
     public List<NotificationModel> getNotifications(@PathVariable String userId) {
         return notificationRepository.findByUserId(userId);
     }
 
+    // Live notifications as Server-Sent Events; EventSource resends Last-Event-ID on reconnect
+    @GetMapping(value = "/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(
+            @PathVariable String userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return notificationStreams.subscribe(userId, lastEventId);
+    }
+
+    @GetMapping("/{userId}/unreadCount")
+    public Map<String, Long> getUnreadCount(@PathVariable String userId) {
+        return Map.of("unreadCount", notificationRepository.countByUserIdAndReadFalse(userId));
+    }
+
     @PutMapping("/{id}/markAsRead")
     public ResponseEntity<?> markAsRead(@PathVariable String id) {
-        return notificationRepository.findById(id).map(notification -> {
-            notification.setRead(true);
-            notificationRepository.save(notification);
+        if (notificationRepository.markAsRead(id)) {
             return ResponseEntity.ok("Notification marked as read");
-        }).orElse(ResponseEntity.notFound().build());
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @PutMapping("/{userId}/markAllRead")
+    public ResponseEntity<?> markAllRead(@PathVariable String userId) {
+        long updated = notificationRepository.markAllRead(userId);
+        return ResponseEntity.ok(Map.of("message", "All notifications marked as read", "updated", updated));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,162 @@
+package backend.Notification.job;
+
+import backend.Notification.model.NotificationModel;
+import backend.jobs.JobLease;
+import backend.jobs.JobLeases;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the notifications collection bounded.
+ *
+ * Read notifications expire through a partial TTL index on createdAt once they are older than
+ * notifications.retention.read-ttl. On top of that every user keeps at most
+ * notifications.retention.max-per-user notifications, read or not: users who received something
+ * are compacted shortly afterwards, and a daily sweep catches anyone over the cap from before.
+ * Deletes go in batches so a user with a huge backlog never turns into one long write.
+ */
+@Component
+public class NotificationRetentionJob {
+    private static final String JOB_NAME = "notificationCompaction";
+    private static final String TTL_INDEX = "read_createdAt_ttl";
+
+    private final MongoTemplate mongoTemplate;
+    private final JobLeases jobLeases;
+    private final Duration readTtl;
+    private final int maxPerUser;
+    private final int batchSize;
+    private final Set<String> touchedUsers = ConcurrentHashMap.newKeySet();
+    private final Counter compacted;
+
+    public NotificationRetentionJob(MongoTemplate mongoTemplate,
+                                    JobLeases jobLeases,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${notifications.retention.read-ttl:P30D}") Duration readTtl,
+                                    @Value("${notifications.retention.max-per-user:500}") int maxPerUser,
+                                    @Value("${notifications.retention.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobLeases = jobLeases;
+        this.readTtl = readTtl;
+        this.maxPerUser = maxPerUser;
+        this.batchSize = batchSize;
+        this.compacted = Counter.builder("notifications.retention.compacted")
+                .description("Notifications deleted for exceeding the per-user cap")
+                .register(meterRegistry);
+    }
+
+    // Creates the TTL index, or changes its expiry in place when the configured TTL changed
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureTtlIndex() {
+        IndexOperations indexOps = mongoTemplate.indexOps(NotificationModel.class);
+        Optional<IndexInfo> existing = indexOps.getIndexInfo().stream()
+                .filter(index -> TTL_INDEX.equals(index.getName()))
+                .findFirst();
+        if (existing.isEmpty()) {
+            indexOps.ensureIndex(new Index().on("createdAt", Sort.Direction.ASC)
+                    .named(TTL_INDEX)
+                    .expire(readTtl)
+                    .partial(PartialIndexFilter.of(Criteria.where("read").is(true))));
+        } else if (!existing.get().getExpireAfter().map(readTtl::equals).orElse(false)) {
+            mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(NotificationModel.class))
+                    .append("index", new Document("name", TTL_INDEX).append("expireAfterSeconds", readTtl.toSeconds())));
+        }
+    }
+
+    // Called for every notification written; the user is checked against the cap on the next run
+    public void touched(String userId) {
+        touchedUsers.add(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.retention.compact-interval:PT1M}")
+    public void compactTouched() {
+        List<String> userIds = new ArrayList<>(touchedUsers);
+        touchedUsers.removeAll(userIds);
+        userIds.forEach(this::enforceCap);
+    }
+
+    // Once a day, on one node only
+    @Scheduled(cron = "${notifications.retention.sweep-cron:0 30 3 * * ?}")
+    public void sweep() {
+        JobLease lease = jobLeases.tryAcquire(JOB_NAME, LocalDate.now().toString(), 0);
+        if (lease == null) {
+            return;
+        }
+        Aggregation overCap = Aggregation.newAggregation(
+                Aggregation.group("userId").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(maxPerUser)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        long deleted = 0;
+        for (Document user : mongoTemplate.aggregate(overCap, NotificationModel.class, Document.class)) {
+            String userId = user.getString("_id");
+            deleted += enforceCap(userId);
+            if (!jobLeases.checkpoint(lease, userId, 1)) {
+                return;
+            }
+        }
+        jobLeases.complete(lease);
+        if (deleted > 0) {
+            System.out.println("Notification sweep deleted " + deleted + " notifications over the per-user cap");
+        }
+    }
+
+    // Deletes everything older than the user's newest maxPerUser notifications; returns how many
+    long enforceCap(String userId) {
+        if (userId == null) {
+            return 0;
+        }
+        // The oldest notification still within the cap, found by walking the userId_id index
+        Query boundaryQuery = Query.query(Criteria.where("userId").is(userId))
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .skip(maxPerUser - 1L)
+                .limit(1);
+        boundaryQuery.fields().include("_id");
+        NotificationModel boundary = mongoTemplate.findOne(boundaryQuery, NotificationModel.class);
+        if (boundary == null) {
+            return 0;
+        }
+
+        long deleted = 0;
+        while (true) {
+            Query batchQuery = Query.query(Criteria.where("userId").is(userId).and("_id").lt(boundary.getId()))
+                    .limit(batchSize);
+            batchQuery.fields().include("_id");
+            List<String> ids = mongoTemplate.find(batchQuery, NotificationModel.class).stream()
+                    .map(NotificationModel::getId)
+                    .toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+            deleted += mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), NotificationModel.class)
+                    .getDeletedCount();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        compacted.increment(deleted);
+        return deleted;
+    }
+}
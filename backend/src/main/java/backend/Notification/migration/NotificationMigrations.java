@@ -0,0 +1,59 @@
+package backend.Notification.migration;
+
+import backend.Notification.model.NotificationModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * One-off data migrations for the notifications collection. Each step only touches documents
+ * that have not been migrated yet, so running them on every startup is cheap and safe.
+ */
+@Component
+public class NotificationMigrations {
+    private final MongoTemplate mongoTemplate;
+
+    public NotificationMigrations(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        convertCreatedAt();
+        backfillUpdatedAt();
+    }
+
+    // createdAt used to be a "yyyy-MM-dd HH:mm:ss" string in the server's zone. The TTL index only
+    // expires real dates, so parse it; unparseable values fall back to the time in the ObjectId.
+    void convertCreatedAt() {
+        Document parseCreatedAt = new Document("$set", new Document("createdAt",
+                new Document("$dateFromString", new Document("dateString", "$createdAt")
+                        .append("format", "%Y-%m-%d %H:%M:%S")
+                        .append("timezone", ZoneId.systemDefault().getId())
+                        .append("onError", new Document("$toDate", "$_id")))));
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(NotificationModel.class))
+                .updateMany(Filters.type("createdAt", "string"), List.of(parseCreatedAt));
+        if (result.getModifiedCount() > 0) {
+            System.out.println("Converted createdAt to a date on " + result.getModifiedCount() + " notifications");
+        }
+    }
+
+    // Streams resume by updatedAt; notifications stored before it existed were last changed when created
+    void backfillUpdatedAt() {
+        Document setUpdatedAt = new Document("$set", new Document()
+                .append("updatedAt", new Document("$ifNull", List.of("$createdAt", new Document("$toDate", "$_id"))))
+                .append("version", 1));
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(NotificationModel.class))
+                .updateMany(Filters.exists("updatedAt", false), List.of(setUpdatedAt));
+        if (result.getModifiedCount() > 0) {
+            System.out.println("Backfilled updatedAt on " + result.getModifiedCount() + " notifications");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package backend.Notification.model;
+
+import java.time.Instant;
+
+/**
+ * One user acting on something another user owns (a like, a comment, a follow). Events with the
+ * same group key are merged into a single stored notification that reads "Alice and 12 others
+ * liked your post" instead of producing one document each.
+ */
+public class GroupedNotification {
+    private final String userId; // Recipient
+    private final String type;
+    private final String targetId;
+    private final String actorId;
+    private final String actorName;
+    private final String action; // Message text after the actor part, e.g. " liked your Pasta post"
+    private final Instant createdAt;
+    private final String groupKey;
+
+    public GroupedNotification(String userId, String type, String targetId, String actorId, String actorName,
+                               String action, Instant createdAt, String groupKey) {
+        this.userId = userId;
+        this.type = type;
+        this.targetId = targetId;
+        this.actorId = actorId;
+        this.actorName = actorName;
+        this.action = action;
+        this.createdAt = createdAt;
+        this.groupKey = groupKey;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public String getActorId() {
+        return actorId;
+    }
+
+    public String getActorName() {
+        return actorName;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getGroupKey() {
+        return groupKey;
+    }
+}
@@ -1,22 +1,46 @@
 package backend.Notification.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+import java.util.List;
+
 @Document(collection = "notifications")
+@CompoundIndex(name = "userId_id", def = "{'userId': 1, '_id': -1}")
+@CompoundIndex(name = "userId_read", def = "{'userId': 1, 'read': 1}")
+@CompoundIndex(name = "userId_updatedAt", def = "{'userId': 1, 'updatedAt': 1}")
 public class NotificationModel {
+    public static final String TYPE_LIKE = "LIKE";
+    public static final String TYPE_COMMENT = "COMMENT";
+    public static final String TYPE_FOLLOW = "FOLLOW";
+    public static final String TYPE_PLAN_EXPIRY = "PLAN_EXPIRY";
+
     @Id
     @GeneratedValue
     private String id;
     private String userId; // The user who owns this notification
     private String message; // Notification message
     private boolean read; // Whether the notification has been read
-    private String createdAt; // Timestamp of the notification
+    private Instant createdAt; // Timestamp of the notification; read ones expire by it
+    private Instant updatedAt; // Last time the notification was stored or changed; streams resume by it
+    private long version; // Bumped on every change, so a regrouped notification is sent again
+    @Indexed(name = "dedupeKey_unique", unique = true, sparse = true)
+    private String dedupeKey; // Set on system notifications that must be sent at most once
+    private String type; // One of the TYPE_ constants
+    private String targetId; // The post, user or plan the notification is about
+    private int actorCount; // Grouped notifications: how many distinct users did this
+    private List<String> sampleActors; // Grouped notifications: the latest few actor names
+    @JsonIgnore
+    private List<String> actorIds; // Grouped notifications: who is already counted
 
     public NotificationModel() {}
 
-    public NotificationModel(String userId, String message, boolean read, String createdAt) {
+    public NotificationModel(String userId, String message, boolean read, Instant createdAt) {
         this.userId = userId;
         this.message = message;
         this.read = read;
@@ -55,11 +79,75 @@ public class NotificationModel {
         this.read = read;
     }
 
-    public String getCreatedAt() {
+    public Instant getCreatedAt() {
         return createdAt;
     }
 
-    public void setCreatedAt(String createdAt) {
+    public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getDedupeKey() {
+        return dedupeKey;
+    }
+
+    public void setDedupeKey(String dedupeKey) {
+        this.dedupeKey = dedupeKey;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(String targetId) {
+        this.targetId = targetId;
+    }
+
+    public int getActorCount() {
+        return actorCount;
+    }
+
+    public void setActorCount(int actorCount) {
+        this.actorCount = actorCount;
+    }
+
+    public List<String> getSampleActors() {
+        return sampleActors;
+    }
+
+    public void setSampleActors(List<String> sampleActors) {
+        this.sampleActors = sampleActors;
+    }
+
+    public List<String> getActorIds() {
+        return actorIds;
+    }
+
+    public void setActorIds(List<String> actorIds) {
+        this.actorIds = actorIds;
+    }
 }
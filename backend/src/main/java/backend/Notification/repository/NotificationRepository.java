@@ -1,13 +1,24 @@
 package backend.Notification.repository;
 
 import backend.Notification.model.NotificationModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface NotificationRepository extends MongoRepository<NotificationModel, String> {
+public interface NotificationRepository extends MongoRepository<NotificationModel, String>, NotificationRepositoryCustom {
     List<NotificationModel> findByUserId(String userId);
     void deleteByUserId(String userId);
+
+    List<NotificationModel> findByDedupeKeyIn(Collection<String> dedupeKeys);
+
+    // Badge count, answered from the userId_read index
+    long countByUserIdAndReadFalse(String userId);
+
+    // Stream resume: what was stored or changed for the user since the last event they saw, oldest first
+    List<NotificationModel> findByUserIdAndUpdatedAtGreaterThanEqualOrderByUpdatedAtAsc(String userId, Instant since, Pageable pageable);
 }
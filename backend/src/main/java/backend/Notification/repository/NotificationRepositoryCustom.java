@@ -0,0 +1,22 @@
+package backend.Notification.repository;
+
+import backend.Notification.model.GroupedNotification;
+import backend.Notification.model.NotificationModel;
+
+import java.util.List;
+import java.util.Set;
+
+public interface NotificationRepositoryCustom {
+    // Unordered bulk insert; notifications rejected by the dedupeKey unique index are skipped. Returns the ones inserted
+    List<NotificationModel> insertSkippingDuplicates(List<NotificationModel> notifications);
+
+    // Folds each event into the notification for its group key, creating it if needed. Events whose actor is
+    // already counted in the group are no-ops. Returns the group keys that actually changed
+    Set<String> upsertGrouped(List<GroupedNotification> events);
+
+    // Single-field $set; false if no such notification
+    boolean markAsRead(String id);
+
+    // One updateMany over the user's unread notifications; returns how many changed
+    long markAllRead(String userId);
+}
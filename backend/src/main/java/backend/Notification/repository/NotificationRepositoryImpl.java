@@ -0,0 +1,155 @@
+package backend.Notification.repository;
+
+import backend.Notification.model.GroupedNotification;
+import backend.Notification.model.NotificationModel;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class NotificationRepositoryImpl implements NotificationRepositoryCustom {
+    private static final int MAX_SAMPLE_ACTORS = 3;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<NotificationModel> insertSkippingDuplicates(List<NotificationModel> notifications) {
+        if (notifications.isEmpty()) {
+            return List.of();
+        }
+        // Assign ids up front so the caller gets back fully populated documents
+        Instant now = Instant.now();
+        for (NotificationModel notification : notifications) {
+            if (notification.getId() == null) {
+                notification.setId(new ObjectId().toHexString());
+            }
+            notification.setUpdatedAt(now);
+            notification.setVersion(1);
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationModel.class)
+                    .insert(notifications)
+                    .execute();
+            return notifications;
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            Set<Integer> rejected = e.getErrors().stream()
+                    .map(BulkWriteError::getIndex)
+                    .collect(Collectors.toSet());
+            List<NotificationModel> inserted = new ArrayList<>();
+            for (int i = 0; i < notifications.size(); i++) {
+                if (!rejected.contains(i)) {
+                    inserted.add(notifications.get(i));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    @Override
+    public Set<String> upsertGrouped(List<GroupedNotification> events) {
+        if (events.isEmpty()) {
+            return Set.of();
+        }
+        Date now = new Date();
+        List<UpdateOneModel<Document>> upserts = new ArrayList<>(events.size());
+        for (GroupedNotification event : events) {
+            // Matching only groups that don't count this actor yet; if the group exists and does, the
+            // upsert collides with the dedupeKey unique index and the event is dropped. That is what
+            // keeps unlike/like toggles from counting the same person twice.
+            Document filter = new Document("dedupeKey", event.getGroupKey())
+                    .append("actorIds", new Document("$ne", event.getActorId()));
+            upserts.add(new UpdateOneModel<>(filter, groupedUpdate(event, now), new UpdateOptions().upsert(true)));
+        }
+
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(NotificationModel.class))
+                    .bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                rejected.add(error.getIndex());
+            }
+        }
+
+        Set<String> changed = new HashSet<>();
+        for (int i = 0; i < events.size(); i++) {
+            if (!rejected.contains(i)) {
+                changed.add(events.get(i).getGroupKey());
+            }
+        }
+        return changed;
+    }
+
+    // Update pipeline that adds the actor and recomputes count, sample and message in the same write
+    private List<Document> groupedUpdate(GroupedNotification event, Date now) {
+        Document addActor = new Document("$set", new Document()
+                .append("userId", event.getUserId())
+                .append("type", event.getType())
+                .append("targetId", event.getTargetId())
+                .append("read", false)
+                .append("createdAt", Date.from(event.getCreatedAt()))
+                .append("updatedAt", now)
+                .append("version", new Document("$add", Arrays.asList(new Document("$ifNull", Arrays.asList("$version", 0)), 1)))
+                .append("actorIds", new Document("$concatArrays", List.of(
+                        new Document("$ifNull", Arrays.asList("$actorIds", List.of())),
+                        new Document("$literal", List.of(event.getActorId())))))
+                .append("sampleActors", new Document("$slice", List.of(
+                        new Document("$concatArrays", List.of(
+                                new Document("$literal", List.of(event.getActorName())),
+                                new Document("$ifNull", Arrays.asList("$sampleActors", List.of())))),
+                        MAX_SAMPLE_ACTORS))));
+        Document count = new Document("$set", new Document("actorCount", new Document("$size", "$actorIds")));
+        Document others = new Document("$switch", new Document()
+                .append("branches", List.of(
+                        new Document("case", new Document("$eq", List.of("$actorCount", 1))).append("then", ""),
+                        new Document("case", new Document("$eq", List.of("$actorCount", 2))).append("then", " and 1 other")))
+                .append("default", new Document("$concat", List.of(
+                        " and ", new Document("$toString", new Document("$subtract", List.of("$actorCount", 1))), " others"))));
+        Document message = new Document("$set", new Document("message", new Document("$concat", List.of(
+                new Document("$literal", event.getActorName()),
+                others,
+                new Document("$literal", event.getAction())))));
+        return List.of(addActor, count, message);
+    }
+
+    @Override
+    public boolean markAsRead(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        return mongoTemplate.updateFirst(query, Update.update("read", true), NotificationModel.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public long markAllRead(String userId) {
+        Query query = Query.query(Criteria.where("userId").is(userId).and("read").is(false));
+        return mongoTemplate.updateMulti(query, Update.update("read", true), NotificationModel.class).getModifiedCount();
+    }
+}
@@ -0,0 +1,173 @@
+package backend.Notification.service;
+
+import backend.Notification.model.GroupedNotification;
+import backend.Notification.model.NotificationModel;
+import backend.Notification.repository.NotificationRepository;
+import backend.Notification.stream.NotificationBroadcaster;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes notification writes off the request thread. Notifications and grouped events go into a
+ * bounded queue and a single writer stores them with one bulk write of each kind per batch,
+ * flushing when the batch is full or when the oldest queued entry has waited for the linger time.
+ *
+ * When the queue is full, notifications.pipeline.overflow decides: "caller-runs" (default) stores
+ * the notification synchronously on the caller's thread, "drop" discards it and counts the drop.
+ * On shutdown new submissions are written synchronously and the writer drains what is queued.
+ */
+@Component
+public class NotificationPipeline {
+    private final NotificationRepository notificationRepository;
+    private final NotificationBroadcaster notificationBroadcaster;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatchSize;
+    private final Duration linger;
+    private final Duration shutdownTimeout;
+    private final boolean dropOnOverflow;
+    private final DistributionSummary batchSizes;
+    private final Timer lag;
+    private final Counter dropped;
+    private final Counter failed;
+    private volatile boolean accepting = true;
+    private Thread writer;
+
+    public NotificationPipeline(NotificationRepository notificationRepository,
+                                NotificationBroadcaster notificationBroadcaster,
+                                MeterRegistry meterRegistry,
+                                @Value("${notifications.pipeline.capacity:10000}") int capacity,
+                                @Value("${notifications.pipeline.max-batch-size:500}") int maxBatchSize,
+                                @Value("${notifications.pipeline.linger:PT0.05S}") Duration linger,
+                                @Value("${notifications.pipeline.shutdown-timeout:PT10S}") Duration shutdownTimeout,
+                                @Value("${notifications.pipeline.overflow:caller-runs}") String overflow) {
+        this.notificationRepository = notificationRepository;
+        this.notificationBroadcaster = notificationBroadcaster;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.linger = linger;
+        this.shutdownTimeout = shutdownTimeout;
+        this.dropOnOverflow = "drop".equalsIgnoreCase(overflow);
+
+        Gauge.builder("notifications.pipeline.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting to be written")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("notifications.pipeline.batch.size")
+                .description("Notifications written per bulk insert")
+                .register(meterRegistry);
+        this.lag = Timer.builder("notifications.pipeline.lag")
+                .description("Time from submit until the notification is stored and broadcast")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notifications.pipeline.dropped")
+                .description("Notifications discarded because the queue was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder("notifications.pipeline.failed")
+                .description("Notifications lost to a failed bulk insert")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        writer = new Thread(this::runWriter, "notification-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        accepting = false;
+        writer.interrupt();
+        writer.join(shutdownTimeout.toMillis());
+    }
+
+    public void submit(NotificationModel notification) {
+        submit(new Pending(notification, null, System.nanoTime()));
+    }
+
+    public void submit(GroupedNotification event) {
+        submit(new Pending(null, event, System.nanoTime()));
+    }
+
+    private void submit(Pending pending) {
+        if (accepting && queue.offer(pending)) {
+            return;
+        }
+        if (accepting && dropOnOverflow) {
+            dropped.increment();
+            return;
+        }
+        write(List.of(pending));
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.submittedAt + linger.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutting down: stop lingering and flush everything that is left
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<NotificationModel> notifications = new ArrayList<>();
+        List<GroupedNotification> grouped = new ArrayList<>();
+        for (Pending pending : batch) {
+            if (pending.notification != null) {
+                notifications.add(pending.notification);
+            } else {
+                grouped.add(pending.grouped);
+            }
+        }
+        try {
+            notificationRepository.insertSkippingDuplicates(notifications).forEach(notificationBroadcaster::broadcast);
+            Set<String> changedGroups = notificationRepository.upsertGrouped(grouped);
+            if (!changedGroups.isEmpty()) {
+                notificationRepository.findByDedupeKeyIn(changedGroups).forEach(notificationBroadcaster::broadcast);
+            }
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            System.err.println("Failed to write " + batch.size() + " notifications: " + e.getMessage());
+            return;
+        }
+        batchSizes.record(batch.size());
+        long now = System.nanoTime();
+        batch.forEach(pending -> lag.record(now - pending.submittedAt, TimeUnit.NANOSECONDS));
+    }
+
+    // Exactly one of notification and grouped is set
+    private record Pending(NotificationModel notification, GroupedNotification grouped, long submittedAt) {
+    }
+}
@@ -0,0 +1,61 @@
+package backend.Notification.service;
+
+import backend.Notification.job.NotificationRetentionJob;
+import backend.Notification.model.GroupedNotification;
+import backend.Notification.model.NotificationModel;
+import backend.Notification.repository.NotificationRepository;
+import backend.Notification.stream.NotificationBroadcaster;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// The single place notifications are created: stores them, then pushes them to open streams
+@Service
+public class NotificationService {
+    private final NotificationRepository notificationRepository;
+    private final NotificationBroadcaster notificationBroadcaster;
+    private final NotificationPipeline notificationPipeline;
+    private final NotificationRetentionJob notificationRetentionJob;
+    private final Duration coalesceWindow;
+
+    public NotificationService(NotificationRepository notificationRepository,
+                               NotificationBroadcaster notificationBroadcaster,
+                               NotificationPipeline notificationPipeline,
+                               NotificationRetentionJob notificationRetentionJob,
+                               @Value("${notifications.coalesce.window:PT1H}") Duration coalesceWindow) {
+        this.notificationRepository = notificationRepository;
+        this.notificationBroadcaster = notificationBroadcaster;
+        this.notificationPipeline = notificationPipeline;
+        this.notificationRetentionJob = notificationRetentionJob;
+        this.coalesceWindow = coalesceWindow;
+    }
+
+    // Asynchronous: the notification is queued and stored in a later batch, off the request thread
+    public void send(NotificationModel notification) {
+        notificationPipeline.submit(notification);
+        notificationRetentionJob.touched(notification.getUserId());
+    }
+
+    // Like send, but merged with other events of the same type on the same target within the coalescing
+    // window. An actor already counted in the window's notification is not counted again
+    public void sendGrouped(String userId, String type, String targetId, String actorId, String actorName, String action) {
+        Instant now = Instant.now();
+        long window = now.toEpochMilli() / coalesceWindow.toMillis();
+        String groupKey = "group:" + type + ":" + targetId + ":" + userId + ":" + window;
+        notificationPipeline.submit(new GroupedNotification(userId, type, targetId, actorId, actorName, action, now, groupKey));
+        notificationRetentionJob.touched(userId);
+    }
+
+    // For notifications carrying a dedupeKey; ones already sent are skipped. Returns the ones actually sent
+    public List<NotificationModel> sendAllOnce(List<NotificationModel> notifications) {
+        List<NotificationModel> inserted = notificationRepository.insertSkippingDuplicates(notifications);
+        inserted.forEach(notification -> {
+            notificationBroadcaster.broadcast(notification);
+            notificationRetentionJob.touched(notification.getUserId());
+        });
+        return inserted;
+    }
+}
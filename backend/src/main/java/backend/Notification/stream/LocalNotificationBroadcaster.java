@@ -0,0 +1,20 @@
+package backend.Notification.stream;
+
+import backend.Notification.model.NotificationModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "notifications.broadcaster", havingValue = "local", matchIfMissing = true)
+public class LocalNotificationBroadcaster implements NotificationBroadcaster {
+    private final NotificationStreams notificationStreams;
+
+    public LocalNotificationBroadcaster(NotificationStreams notificationStreams) {
+        this.notificationStreams = notificationStreams;
+    }
+
+    @Override
+    public void broadcast(NotificationModel notification) {
+        notificationStreams.deliver(notification);
+    }
+}
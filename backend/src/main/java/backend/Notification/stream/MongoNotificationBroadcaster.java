@@ -0,0 +1,132 @@
+package backend.Notification.stream;
+
+import backend.Notification.model.NotificationModel;
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Multi-node fan-out: each notification is appended to a capped collection and every node
+ * follows that collection with a tailable cursor, delivering to its own local streams.
+ * Nothing is delivered directly, so the local node sees exactly what the others see. Events
+ * carry every field the API exposes, so a stream looks the same whichever broadcaster is in use.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.broadcaster", havingValue = "mongo")
+public class MongoNotificationBroadcaster implements NotificationBroadcaster {
+    private static final String EVENTS_COLLECTION = "notification_events";
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationStreams notificationStreams;
+    private final long cappedSizeBytes;
+    private volatile boolean running = true;
+    private Thread tailer;
+
+    public MongoNotificationBroadcaster(MongoTemplate mongoTemplate,
+                                        NotificationStreams notificationStreams,
+                                        @Value("${notifications.events.capped-size-bytes:16777216}") long cappedSizeBytes) {
+        this.mongoTemplate = mongoTemplate;
+        this.notificationStreams = notificationStreams;
+        this.cappedSizeBytes = cappedSizeBytes;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!mongoTemplate.collectionExists(EVENTS_COLLECTION)) {
+            mongoTemplate.createCollection(EVENTS_COLLECTION, CollectionOptions.empty().capped().size(cappedSizeBytes));
+        }
+        tailer = Thread.ofVirtual().name("notification-events-tailer").start(this::tail);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        tailer.interrupt();
+    }
+
+    @Override
+    public void broadcast(NotificationModel notification) {
+        Document event = new Document("_id", new ObjectId())
+                .append("notificationId", notification.getId())
+                .append("userId", notification.getUserId())
+                .append("message", notification.getMessage())
+                .append("read", notification.isRead())
+                .append("createdAt", toDate(notification.getCreatedAt()))
+                .append("updatedAt", toDate(notification.getUpdatedAt()))
+                .append("version", notification.getVersion())
+                .append("type", notification.getType())
+                .append("targetId", notification.getTargetId())
+                .append("actorCount", notification.getActorCount())
+                .append("sampleActors", notification.getSampleActors());
+        mongoTemplate.getCollection(EVENTS_COLLECTION).insertOne(event);
+    }
+
+    // Follows the capped collection from "now"; the cursor is reopened after the last seen event if it dies
+    private void tail() {
+        MongoCollection<Document> events = mongoTemplate.getCollection(EVENTS_COLLECTION);
+        ObjectId lastSeen = new ObjectId();
+
+        while (running) {
+            try (MongoCursor<Document> cursor = events.find(Filters.gt("_id", lastSeen))
+                    .cursorType(CursorType.TailableAwait)
+                    .noCursorTimeout(true)
+                    .iterator()) {
+                while (running && cursor.hasNext()) {
+                    Document event = cursor.next();
+                    lastSeen = event.getObjectId("_id");
+                    notificationStreams.deliver(toNotification(event));
+                }
+            } catch (RuntimeException e) {
+                if (running) {
+                    System.err.println("Notification event tailer failed, retrying: " + e.getMessage());
+                }
+            }
+            // A tailable cursor on an empty capped collection returns immediately; back off before retrying
+            try {
+                Thread.sleep(RETRY_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private NotificationModel toNotification(Document event) {
+        NotificationModel notification = new NotificationModel(
+                event.getString("userId"),
+                event.getString("message"),
+                event.getBoolean("read", false),
+                toInstant(event.getDate("createdAt")));
+        notification.setId(event.getString("notificationId"));
+        notification.setUpdatedAt(toInstant(event.getDate("updatedAt")));
+        notification.setVersion(event.get("version", Number.class) != null ? event.get("version", Number.class).longValue() : 0);
+        notification.setType(event.getString("type"));
+        notification.setTargetId(event.getString("targetId"));
+        notification.setActorCount(event.getInteger("actorCount", 0));
+        notification.setSampleActors(event.getList("sampleActors", String.class));
+        return notification;
+    }
+
+    private static Date toDate(Instant instant) {
+        return instant != null ? Date.from(instant) : null;
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+}
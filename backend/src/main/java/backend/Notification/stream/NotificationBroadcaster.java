@@ -0,0 +1,12 @@
+package backend.Notification.stream;
+
+import backend.Notification.model.NotificationModel;
+
+/**
+ * Carries a freshly stored notification to every node that may hold an open stream for its
+ * user. Pick the implementation with notifications.broadcaster: "local" (default) for a
+ * single node, "mongo" to fan out across nodes through a capped collection.
+ */
+public interface NotificationBroadcaster {
+    void broadcast(NotificationModel notification);
+}
@@ -0,0 +1,194 @@
+package backend.Notification.stream;
+
+import backend.Notification.model.NotificationModel;
+import backend.Notification.repository.NotificationRepository;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The open Server-Sent Event streams on this node, per user.
+ *
+ * Every stream has a small bounded queue that a virtual thread drains into the response, so a
+ * slow client never blocks whoever publishes a notification. A client whose queue overflows is
+ * disconnected; EventSource reconnects with Last-Event-ID and the missed notifications are
+ * replayed from Mongo, so nothing is lost, only batched up.
+ */
+@Component
+public class NotificationStreams {
+    private static final int REPLAY_LIMIT = 100;
+    // Duplicates only come from a replay overlapping live delivery, so remembering a little more than a replay is enough
+    private static final int SENT_VERSIONS_LIMIT = 2 * REPLAY_LIMIT;
+
+    private final NotificationRepository notificationRepository;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final int queueCapacity;
+    private final Duration streamTimeout;
+
+    public NotificationStreams(NotificationRepository notificationRepository,
+                               @Value("${notifications.stream.queue-capacity:64}") int queueCapacity,
+                               @Value("${notifications.stream.timeout:PT30M}") Duration streamTimeout) {
+        this.notificationRepository = notificationRepository;
+        this.queueCapacity = queueCapacity;
+        this.streamTimeout = streamTimeout;
+    }
+
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(userId, emitter);
+
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+
+        // Registered before replaying, so nothing published in between can slip through the gap
+        Instant since = resumePoint(lastEventId);
+        if (since != null) {
+            List<NotificationModel> missed = notificationRepository.findByUserIdAndUpdatedAtGreaterThanEqualOrderByUpdatedAtAsc(
+                    userId, since, PageRequest.of(0, REPLAY_LIMIT));
+            missed.stream()
+                    .filter(notification -> !eventId(notification).equals(lastEventId))
+                    .forEach(subscriber::offer);
+        }
+        return emitter;
+    }
+
+    public void deliver(NotificationModel notification) {
+        Set<Subscriber> userSubscribers = subscribers.get(notification.getUserId());
+        if (userSubscribers != null) {
+            userSubscribers.forEach(subscriber -> subscriber.offer(notification));
+        }
+    }
+
+    // Keeps idle connections open through proxies and detects clients that went away
+    @Scheduled(fixedRateString = "${notifications.stream.heartbeat:PT20S}")
+    public void heartbeat() {
+        subscribers.values().forEach(userSubscribers ->
+                userSubscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    // "<updatedAt millis>-<notification id>", so a reconnect resumes by when things changed rather than by id;
+    // a grouped notification keeps its id while it gains actors
+    static String eventId(NotificationModel notification) {
+        long updatedAt = notification.getUpdatedAt() != null ? notification.getUpdatedAt().toEpochMilli() : 0;
+        return updatedAt + "-" + notification.getId();
+    }
+
+    // Also accepts a bare notification id, which is what streams used to send as the event id
+    static Instant resumePoint(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        int dash = lastEventId.indexOf('-');
+        if (dash > 0) {
+            try {
+                return Instant.ofEpochMilli(Long.parseLong(lastEventId.substring(0, dash)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ObjectId.isValid(lastEventId) ? new ObjectId(lastEventId).getDate().toInstant() : null;
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (userId, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+
+    private class Subscriber {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(queueCapacity);
+        // Notification id -> last version sent, least recently sent first
+        private final Map<String, Long> sentVersions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > SENT_VERSIONS_LIMIT;
+            }
+        };
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(NotificationModel notification) {
+            // A replayed notification can also arrive live; send each version of it once, and never an older one after it
+            if (notification.getId() != null && !markSent(notification.getId(), notification.getVersion())) {
+                return;
+            }
+            offer(SseEmitter.event().id(eventId(notification)).name("notification").data(notification));
+        }
+
+        private boolean markSent(String id, long version) {
+            synchronized (sentVersions) {
+                Long sent = sentVersions.get(id);
+                if (sent != null && sent >= version) {
+                    return false;
+                }
+                sentVersions.put(id, version);
+                return true;
+            }
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!queue.offer(event)) {
+                // Too slow to keep up: drop the connection and let the client resume from its last id
+                remove(this);
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // Something may have been queued after the last poll but before draining was cleared
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+}
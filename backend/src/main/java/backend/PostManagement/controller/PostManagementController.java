@@ -1,44 +1,69 @@
 package backend.PostManagement.controller;
 
+import backend.exception.InvalidMediaException;
 import backend.exception.ResourceNotFoundException;
 import backend.PostManagement.model.Comment;
+import backend.Feed.service.FeedService;
 import backend.Notification.model.NotificationModel;
 import backend.PostManagement.model.PostManagementModel;
-import backend.Notification.repository.NotificationRepository;
+import backend.PostManagement.model.PostSummary;
+import backend.Notification.service.NotificationService;
+import backend.PostManagement.repository.CommentRepository;
 import backend.PostManagement.repository.PostManagementRepository;
-import backend.User.repository.UserRepository;
+import backend.User.cache.UserNameCache;
+import backend.media.ImageVariants;
+import backend.media.MediaFormat;
+import backend.media.MediaIngestor;
+import backend.media.MediaStore;
+import backend.pagination.CursorPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/posts")
 public class PostManagementController {
+    private static final Set<MediaFormat> POST_MEDIA_FORMATS = EnumSet.of(MediaFormat.JPEG, MediaFormat.PNG, MediaFormat.MP4);
+
     @Autowired
     private PostManagementRepository postRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserNameCache userNameCache;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private CommentRepository commentRepository;
 
     @Autowired
-    private NotificationRepository notificationRepository;
+    private FeedService feedService;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private MediaIngestor mediaIngestor;
+
+    @Autowired
+    private ImageVariants imageVariants;
 
     @Value("${media.upload.dir}")
     private String uploadDir;
@@ -55,55 +80,86 @@ public class PostManagementController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("You must upload between 1 and 3 media files.");
         }
 
-        // Resolve the upload directory as an absolute path
-        final File uploadDirectory = new File(uploadDir.isBlank() ? uploadDir : System.getProperty("user.dir"), uploadDir);
-
-        // Ensure the upload directory exists
-        if (!uploadDirectory.exists()) {
-            boolean created = uploadDirectory.mkdirs();
-            if (!created) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to create upload directory.");
-            }
+        // Checked while the files are copied; the post is only saved once all of them passed
+        List<MediaStore.Staged> staged;
+        try {
+            staged = mediaIngestor.stage(mediaFiles, POST_MEDIA_FORMATS);
+        } catch (InvalidMediaException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to store media files.");
         }
 
-        List<String> mediaUrls = mediaFiles.stream()
-                .filter(file -> file.getContentType().matches("image/(jpeg|png|jpg)|video/mp4"))
-                .map(file -> {
-                    try {
-                        // Generate a unique filename
-                        String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
-                        String uniqueFileName = System.currentTimeMillis() + "_" + UUID.randomUUID() + "." + extension;
-
-                        Path filePath = uploadDirectory.toPath().resolve(uniqueFileName);
-                        file.transferTo(filePath.toFile());
-                        return "/media/" + uniqueFileName; // URL to access the file
-                    } catch (IOException e) {
-                        throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
-                    }
-                })
-                .collect(Collectors.toList());
-
         PostManagementModel post = new PostManagementModel();
         post.setUserID(userID);
         post.setTitle(title);
         post.setDescription(description);
         post.setCategory(category); // Set category
-        post.setMedia(mediaUrls);
+        post.setMedia(staged.stream().map(blob -> "/media/" + blob.name()).collect(Collectors.toList()));
 
-        PostManagementModel savedPost = postRepository.save(post);
+        PostManagementModel savedPost;
+        try {
+            savedPost = postRepository.save(post);
+        } catch (RuntimeException e) {
+            mediaIngestor.discard(staged);
+            throw e;
+        }
+        try {
+            mediaIngestor.commit(staged);
+        } catch (RuntimeException e) {
+            postRepository.deleteById(savedPost.getId());
+            throw e;
+        }
+        generateVariants(staged);
+        feedService.onPostCreated(savedPost);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedPost);
     }
 
+    // Post cards; viewerId, if given, fills in likedByViewer. The full post is at GET /posts/{postId}.
+    // ids (repeatable, up to one page) returns just those posts in that order, e.g. to show search hits
     @GetMapping
-    public List<PostManagementModel> getAllPosts() {
-        return postRepository.findAll();
+    public ResponseEntity<CursorPage<PostSummary>> getAllPosts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String viewerId,
+            @RequestParam(required = false) List<String> ids) {
+        if (ids != null) {
+            return listPostsByIds(ids, viewerId);
+        }
+        return listPosts(null, cursor, limit, viewerId);
     }
 
     @GetMapping("/user/{userID}")
-    public List<PostManagementModel> getPostsByUser(@PathVariable String userID) {
-        return postRepository.findAll().stream()
-                .filter(post -> post.getUserID().equals(userID))
-                .collect(Collectors.toList());
+    public ResponseEntity<CursorPage<PostSummary>> getPostsByUser(
+            @PathVariable String userID,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String viewerId) {
+        return listPosts(userID, cursor, limit, viewerId);
+    }
+
+    private ResponseEntity<CursorPage<PostSummary>> listPosts(String userID, String cursor, Integer limit, String viewerId) {
+        if (viewerId != null && !isValidLikeKey(viewerId)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        int pageSize = CursorPage.clampLimit(limit);
+        String before = cursor == null || cursor.isBlank() ? null : CursorPage.decodeObjectId(cursor);
+        List<PostSummary> posts = postRepository.findSummaries(
+                userID != null ? List.of(userID) : null, before, viewerId, pageSize + 1);
+        return ResponseEntity.ok(CursorPage.of(posts, pageSize, PostSummary::getId));
+    }
+
+    private ResponseEntity<CursorPage<PostSummary>> listPostsByIds(List<String> ids, String viewerId) {
+        if (ids.size() > CursorPage.MAX_LIMIT || (viewerId != null && !isValidLikeKey(viewerId))) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        Map<String, PostSummary> posts = postRepository.findSummariesByIdIn(ids, viewerId).stream()
+                .collect(Collectors.toMap(PostSummary::getId, post -> post));
+        List<PostSummary> ordered = ids.stream()
+                .map(posts::get)
+                .filter(post -> post != null)
+                .toList();
+        return ResponseEntity.ok(new CursorPage<>(ordered, null));
     }
 
     @GetMapping("/{postId}")
@@ -121,17 +177,17 @@ public class PostManagementController {
         // Delete associated media files
         for (String mediaUrl : post.getMedia()) {
             try {
-                // Resolve the full file path
-                Path filePath = Paths.get(uploadDir, mediaUrl.replace("/media/", ""));
-                Files.deleteIfExists(filePath);
+                discardMedia(mediaUrl);
             } catch (IOException e) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body("Failed to delete media file: " + mediaUrl);
             }
         }
 
-        // Delete the post from the database
+        // Delete the post and its comments from the database
+        commentRepository.deleteByPostId(postId);
         postRepository.deleteById(postId);
+        feedService.onPostDeleted(postId);
         return ResponseEntity.ok("Post deleted successfully!");
     }
 
@@ -150,33 +206,33 @@ public class PostManagementController {
         post.setDescription(description);
         post.setCategory(category); // Update category
 
+        List<MediaStore.Staged> staged = List.of();
         if (newMediaFiles != null && !newMediaFiles.isEmpty()) {
-            // Ensure the upload directory exists
-            final File uploadDirectory = new File(uploadDir.isBlank() ? uploadDir : System.getProperty("user.dir"), uploadDir);
-            if (!uploadDirectory.exists()) {
-                boolean created = uploadDirectory.mkdirs();
-                if (!created) {
-                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to create upload directory.");
-                }
+            try {
+                staged = mediaIngestor.stage(newMediaFiles, POST_MEDIA_FORMATS);
+            } catch (InvalidMediaException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            } catch (IOException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to store media files.");
             }
-
-            List<String> newMediaUrls = newMediaFiles.stream()
-                    .map(file -> {
-                        try {
-                            String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
-                            String uniqueFileName = System.currentTimeMillis() + "_" + UUID.randomUUID() + "." + extension;
-                            Path filePath = uploadDirectory.toPath().resolve(uniqueFileName);
-                            file.transferTo(filePath.toFile());
-                            return "/media/" + uniqueFileName;
-                        } catch (IOException e) {
-                            throw new RuntimeException("Failed to store file " + file.getOriginalFilename(), e);
-                        }
-                    })
-                    .collect(Collectors.toList());
-            post.getMedia().addAll(newMediaUrls);
         }
+        List<String> newMediaUrls = staged.stream().map(blob -> "/media/" + blob.name()).toList();
+        post.getMedia().addAll(newMediaUrls);
 
-        postRepository.save(post);
+        try {
+            postRepository.save(post);
+        } catch (RuntimeException e) {
+            mediaIngestor.discard(staged);
+            throw e;
+        }
+        try {
+            mediaIngestor.commit(staged);
+        } catch (RuntimeException e) {
+            post.getMedia().removeAll(newMediaUrls);
+            postRepository.save(post);
+            throw e;
+        }
+        generateVariants(staged);
         return ResponseEntity.ok("Post updated successfully!");
     }
 
@@ -191,108 +247,157 @@ public class PostManagementController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Media file not found in post.");
         }
 
+        postRepository.save(post);
         try {
-            Path filePath = Paths.get(uploadDir, mediaUrl.replace("/media/", ""));
-            Files.deleteIfExists(filePath);
+            discardMedia(mediaUrl);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to delete media file.");
         }
-
-        postRepository.save(post);
         return ResponseEntity.ok("Media file deleted successfully!");
     }
 
     @PutMapping("/{postId}/like")
     public ResponseEntity<PostManagementModel> likePost(@PathVariable String postId, @RequestParam String userID) {
-        return postRepository.findById(postId)
-                .map(post -> {
-                    post.getLikes().put(userID, !post.getLikes().getOrDefault(userID, false));
-                    postRepository.save(post);
-
-                    // Create a notification for the post owner
-                    if (!userID.equals(post.getUserID())) {
-                        String userFullName = userRepository.findById(userID)
-                                .map(user -> user.getFullname())
-                                .orElse("Someone");
-                        String message = String.format("%s liked your %s post", userFullName, post.getTitle());
-                        String currentDateTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                        NotificationModel notification = new NotificationModel(post.getUserID(), message, false, currentDateTime);
-                        notificationRepository.save(notification);
-                    }
-
-                    return ResponseEntity.ok(post);
-                })
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        if (!isValidLikeKey(userID)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        PostManagementModel post = postRepository.toggleLike(postId, userID);
+        if (post == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        // Create a notification for the post owner, only when the toggle resulted in a like
+        boolean liked = post.getLikes().getOrDefault(userID, false);
+        if (liked && !userID.equals(post.getUserID())) {
+            String userFullName = userNameCache.getFullname(userID)
+                    .orElse("Someone");
+            notificationService.sendGrouped(post.getUserID(), NotificationModel.TYPE_LIKE, postId, userID,
+                    userFullName, " liked your " + post.getTitle() + " post");
+        }
+
+        return ResponseEntity.ok(post);
+    }
+
+    @GetMapping("/{postId}/comments")
+    public CursorPage<Comment> getComments(
+            @PathVariable String postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Comment> comments;
+        if (cursor == null || cursor.isBlank()) {
+            comments = commentRepository.findByPostIdOrderByIdDesc(postId, pageable);
+        } else {
+            comments = commentRepository.findByPostIdAndIdLessThanOrderByIdDesc(postId, CursorPage.decodeObjectId(cursor), pageable);
+        }
+        return CursorPage.of(comments, pageSize, Comment::getId);
     }
 
     @PostMapping("/{postId}/comment")
-    public ResponseEntity<PostManagementModel> addComment(@PathVariable String postId, @RequestBody Map<String, String> request) {
+    public ResponseEntity<Comment> addComment(@PathVariable String postId, @RequestBody Map<String, String> request) {
         String userID = request.get("userID");
         String content = request.get("content");
 
-        return postRepository.findById(postId)
-                .map(post -> {
-                    Comment comment = new Comment();
-                    comment.setId(UUID.randomUUID().toString());
-                    comment.setUserID(userID);
-                    comment.setContent(content);
+        PostManagementModel post = postRepository.incrementCommentCount(postId, 1);
+        if (post == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
 
-                    // Fetch user's full name
-                    String userFullName = userRepository.findById(userID)
-                            .map(user -> user.getFullname())
-                            .orElse("Anonymous");
-                    comment.setUserFullName(userFullName);
+        Comment comment = new Comment();
+        comment.setPostId(postId);
+        comment.setUserID(userID);
+        comment.setContent(content);
+        comment.setCreatedAt(Instant.now());
 
-                    post.getComments().add(comment);
-                    postRepository.save(post);
+        // Fetch user's full name
+        String userFullName = userNameCache.getFullname(userID)
+                .orElse("Anonymous");
+        comment.setUserFullName(userFullName);
 
-                    // Create a notification for the post owner
-                    if (!userID.equals(post.getUserID())) {
-                        String message = String.format("%s commented on your post: %s", userFullName, post.getTitle());
-                        String currentDateTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-                        NotificationModel notification = new NotificationModel(post.getUserID(), message, false, currentDateTime);
-                        notificationRepository.save(notification);
-                    }
+        Comment savedComment;
+        try {
+            savedComment = commentRepository.save(comment);
+        } catch (RuntimeException e) {
+            postRepository.incrementCommentCount(postId, -1);
+            throw e;
+        }
 
-                    return ResponseEntity.ok(post);
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        // Create a notification for the post owner
+        if (!userID.equals(post.getUserID())) {
+            notificationService.sendGrouped(post.getUserID(), NotificationModel.TYPE_COMMENT, postId, userID,
+                    userFullName, " commented on your post: " + post.getTitle());
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedComment);
     }
 
     @PutMapping("/{postId}/comment/{commentId}")
-    public ResponseEntity<PostManagementModel> updateComment(
+    public ResponseEntity<Comment> updateComment(
             @PathVariable String postId,
             @PathVariable String commentId,
             @RequestBody Map<String, String> request) {
         String userID = request.get("userID");
         String content = request.get("content");
 
-        return postRepository.findById(postId)
-                .map(post -> {
-                    post.getComments().stream()
-                            .filter(comment -> comment.getId().equals(commentId) && comment.getUserID().equals(userID))
-                            .findFirst()
-                            .ifPresent(comment -> comment.setContent(content));
-                    postRepository.save(post);
-                    return ResponseEntity.ok(post);
+        return commentRepository.findByIdAndPostId(commentId, postId)
+                .filter(comment -> comment.getUserID().equals(userID))
+                .map(comment -> {
+                    comment.setContent(content);
+                    return ResponseEntity.ok(commentRepository.save(comment));
                 })
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
     @DeleteMapping("/{postId}/comment/{commentId}")
-    public ResponseEntity<PostManagementModel> deleteComment(
+    public ResponseEntity<?> deleteComment(
             @PathVariable String postId,
             @PathVariable String commentId,
             @RequestParam String userID) {
-        return postRepository.findById(postId)
-                .map(post -> {
-                    post.getComments().removeIf(comment ->
-                            comment.getId().equals(commentId) &&
-                                    (comment.getUserID().equals(userID) || post.getUserID().equals(userID)));
-                    postRepository.save(post);
-                    return ResponseEntity.ok(post);
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        Comment comment = commentRepository.findByIdAndPostId(commentId, postId).orElse(null);
+        if (comment == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        // Comment authors and the post owner may delete
+        boolean allowed = comment.getUserID().equals(userID) || postRepository.findOwnerById(postId)
+                .map(post -> post.getUserID().equals(userID))
+                .orElse(false);
+        if (!allowed) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        // Only the request that actually removed the comment adjusts the count
+        if (commentRepository.deleteByIdAndPostId(commentId, postId) > 0) {
+            postRepository.incrementCommentCount(postId, -1);
+        }
+        return ResponseEntity.ok("Comment deleted successfully!");
+    }
+
+    // A user id that is used as a field path (likes.<userID>) must not be able to name another field
+    private static boolean isValidLikeKey(String userID) {
+        return !userID.isBlank() && !userID.contains(".") && !userID.startsWith("$");
+    }
+
+    private void generateVariants(List<MediaStore.Staged> staged) {
+        staged.forEach(blob -> imageVariants.generate(ImageVariants.MEDIA, blob.name(), () -> mediaStore.open(blob.name())));
+    }
+
+    private static String mediaName(String mediaUrl) {
+        return mediaUrl.replace("/media/", "");
+    }
+
+    // Stored blobs may be shared with other posts, so they are released; files from before the store are deleted
+    private void discardMedia(String mediaUrl) throws IOException {
+        String name = mediaName(mediaUrl);
+        if (mediaStore.isBlob(name)) {
+            mediaStore.release(name);
+        } else {
+            Files.deleteIfExists(Paths.get(uploadDir, name));
+            imageVariants.delete(name);
+        }
     }
 
     @ExceptionHandler(MaxUploadSizeExceededException.class)
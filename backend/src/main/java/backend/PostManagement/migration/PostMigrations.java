@@ -0,0 +1,100 @@
+package backend.PostManagement.migration;
+
+import backend.PostManagement.model.Comment;
+import backend.PostManagement.model.PostManagementModel;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One-off data migrations for the posts collection. Each step only touches documents
+ * that have not been migrated yet, so running them on every startup is cheap and safe.
+ */
+@Component
+public class PostMigrations {
+    private static final int MIGRATION_BATCH_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+
+    public PostMigrations(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        backfillLikeCounts();
+        moveEmbeddedComments();
+    }
+
+    // Posts written before likeCount existed get it computed from the true entries of their likes map
+    void backfillLikeCounts() {
+        Document countLikes = Document.parse(
+                "{ $set: { likeCount: { $size: { $filter: {"
+                        + " input: { $objectToArray: { $ifNull: ['$likes', {}] } },"
+                        + " cond: { $eq: ['$$this.v', true] } } } } } }");
+        UpdateResult result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(PostManagementModel.class))
+                .updateMany(Filters.exists("likeCount", false), List.of(countLikes));
+        if (result.getModifiedCount() > 0) {
+            System.out.println("Backfilled likeCount on " + result.getModifiedCount() + " posts");
+        }
+    }
+
+    // Moves comments that used to be embedded in the post document into the comments collection.
+    // Each post is handled on its own: copies left by an interrupted earlier run are dropped first,
+    // and the embedded list is unset in the same update that adds to commentCount.
+    void moveEmbeddedComments() {
+        MongoCollection<Document> posts = mongoTemplate.getCollection(mongoTemplate.getCollectionName(PostManagementModel.class));
+        MongoCollection<Document> comments = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Comment.class));
+        int migratedPosts = 0;
+
+        try (MongoCursor<Document> cursor = posts.find(Filters.exists("comments"))
+                .projection(Projections.include("comments"))
+                .batchSize(MIGRATION_BATCH_SIZE)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document post = cursor.next();
+                Object postId = post.get("_id");
+                String postIdString = postId.toString();
+                List<Document> embedded = post.getList("comments", Document.class, List.of());
+                Date createdAt = postId instanceof ObjectId objectId ? objectId.getDate() : new Date();
+
+                List<Document> moved = new ArrayList<>(embedded.size());
+                for (Document legacy : embedded) {
+                    // The mapping converter stored the comment's id property as _id; "id" only in hand-written documents
+                    Object legacyId = legacy.get("_id") != null ? legacy.get("_id") : legacy.get("id");
+                    moved.add(new Document("_id", new ObjectId())
+                            .append("postId", postIdString)
+                            .append("userID", legacy.getString("userID"))
+                            .append("userFullName", legacy.getString("userFullName"))
+                            .append("content", legacy.getString("content"))
+                            .append("createdAt", createdAt)
+                            .append("legacyId", legacyId != null ? legacyId.toString() : null));
+                }
+
+                comments.deleteMany(Filters.and(Filters.eq("postId", postIdString), Filters.exists("legacyId")));
+                if (!moved.isEmpty()) {
+                    comments.insertMany(moved);
+                }
+                posts.updateOne(Filters.eq("_id", postId),
+                        Updates.combine(Updates.unset("comments"), Updates.inc("commentCount", moved.size())));
+                migratedPosts++;
+            }
+        }
+        if (migratedPosts > 0) {
+            System.out.println("Moved embedded comments out of " + migratedPosts + " posts");
+        }
+    }
+}
@@ -1,10 +1,23 @@
 package backend.PostManagement.model;
 
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "comments")
+@CompoundIndex(name = "postId_recency", def = "{'postId': 1, '_id': -1}")
 public class Comment {
+    @Id
     private String id;
+    private String postId;
+    @Indexed(name = "userID")
     private String userID;
     private String userFullName;
     private String content;
+    private Instant createdAt;
 
     public String getId() {
         return id;
@@ -14,6 +27,14 @@ public class Comment {
         this.id = id;
     }
 
+    public String getPostId() {
+        return postId;
+    }
+
+    public void setPostId(String postId) {
+        this.postId = postId;
+    }
+
     public String getUserID() {
         return userID;
     }
@@ -37,4 +58,12 @@ public class Comment {
     public void setContent(String content) {
         this.content = content;
     }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
 }
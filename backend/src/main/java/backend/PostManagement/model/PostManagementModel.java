@@ -1,23 +1,30 @@
 package backend.PostManagement.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.ArrayList;
 
 @Document(collection = "posts")
+@CompoundIndex(name = "userID_recency", def = "{'userID': 1, '_id': -1}")
+@CompoundIndex(name = "title_prefix", def = "{'title': 1}", collation = "{'locale': 'en', 'strength': 2}")
 public class PostManagementModel {
     @Id
     private String id;
     private String userID;
+    @TextIndexed(weight = 5)
     private String title;
+    @TextIndexed
     private String description;
     private List<String> media;
     private Map<String, Boolean> likes = new HashMap<>(); // Map to store user likes
-    private List<Comment> comments = new ArrayList<>(); // List to store comments
+    private int likeCount; // Maintained atomically alongside likes
+    private int commentCount; // Comments live in their own collection; this is kept in step with it
+    @TextIndexed(weight = 3)
     private String category; // New field for category
 
     public PostManagementModel(String id, String userID, String title, String description, List<String> media) {
@@ -80,12 +87,20 @@ public class PostManagementModel {
         this.likes = likes;
     }
 
-    public List<Comment> getComments() {
-        return comments;
+    public int getLikeCount() {
+        return likeCount;
     }
 
-    public void setComments(List<Comment> comments) {
-        this.comments = comments;
+    public void setLikeCount(int likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
     }
 
     public String getCategory() {
@@ -0,0 +1,72 @@
+package backend.PostManagement.model;
+
+import java.util.List;
+
+// What a post card renders: no likes map, just the count and whether the viewer liked it
+public class PostSummary {
+    private final String id;
+    private final String userID;
+    private final String title;
+    private final String description;
+    private final String category;
+    private final List<String> media;
+    private final int likeCount;
+    private final int commentCount;
+    private final boolean likedByViewer;
+
+    public PostSummary(String id, String userID, String title, String description, String category,
+                       List<String> media, int likeCount, int commentCount, boolean likedByViewer) {
+        this.id = id;
+        this.userID = userID;
+        this.title = title;
+        this.description = description;
+        this.category = category;
+        this.media = media;
+        this.likeCount = likeCount;
+        this.commentCount = commentCount;
+        this.likedByViewer = likedByViewer;
+    }
+
+    // post must have been read with at most the viewer's entry of likes
+    public static PostSummary of(PostManagementModel post, String viewerId) {
+        boolean liked = viewerId != null && post.getLikes() != null && post.getLikes().getOrDefault(viewerId, false);
+        return new PostSummary(post.getId(), post.getUserID(), post.getTitle(), post.getDescription(), post.getCategory(),
+                post.getMedia(), post.getLikeCount(), post.getCommentCount(), liked);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUserID() {
+        return userID;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public List<String> getMedia() {
+        return media;
+    }
+
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public boolean isLikedByViewer() {
+        return likedByViewer;
+    }
+}
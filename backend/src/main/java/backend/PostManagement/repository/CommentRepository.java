@@ -0,0 +1,18 @@
+package backend.PostManagement.repository;
+
+import backend.PostManagement.model.Comment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CommentRepository extends MongoRepository<Comment, String> {
+    // Served by the postId_recency compound index
+    List<Comment> findByPostIdOrderByIdDesc(String postId, Pageable pageable);
+    List<Comment> findByPostIdAndIdLessThanOrderByIdDesc(String postId, String id, Pageable pageable);
+
+    Optional<Comment> findByIdAndPostId(String id, String postId);
+    long deleteByIdAndPostId(String id, String postId);
+    void deleteByPostId(String postId);
+}
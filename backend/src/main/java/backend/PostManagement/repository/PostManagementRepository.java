@@ -1,8 +1,21 @@
 package backend.PostManagement.repository;
 
 import backend.PostManagement.model.PostManagementModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-public interface PostManagementRepository extends MongoRepository<PostManagementModel, String> {
+import java.util.List;
+import java.util.Optional;
+
+public interface PostManagementRepository extends MongoRepository<PostManagementModel, String>, PostManagementRepositoryCustom {
     void deleteByUserID(String userID); // Ensure this method exists
+
+    // Served by the userID_recency compound index; ids only
+    @Query(value = "{ 'userID': ?0 }", fields = "{ '_id': 1 }", sort = "{ '_id': -1 }")
+    List<PostManagementModel> findRecentIdsByUserID(String userID, Pageable pageable);
+
+    // Owner and title only, for permission checks and notifications
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'userID': 1, 'title': 1 }")
+    Optional<PostManagementModel> findOwnerById(String id);
 }
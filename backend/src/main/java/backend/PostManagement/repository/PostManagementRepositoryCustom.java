@@ -0,0 +1,22 @@
+package backend.PostManagement.repository;
+
+import backend.PostManagement.model.PostManagementModel;
+import backend.PostManagement.model.PostSummary;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PostManagementRepositoryCustom {
+    // Flips userID's like with a single-field atomic update; returns id, userID, title, likeCount and userID's
+    // entry of likes, or null if the post is gone
+    PostManagementModel toggleLike(String postId, String userID);
+
+    // Adjusts commentCount in place; returns id, userID, title and commentCount, or null if the post is gone
+    PostManagementModel incrementCommentCount(String postId, int delta);
+
+    // Post cards, newest first: optionally only by the given authors and only ids below beforeId. Uses userID_recency or _id
+    List<PostSummary> findSummaries(Collection<String> userIDs, String beforeId, String viewerId, int limit);
+
+    // Post cards for the given ids, in no particular order
+    List<PostSummary> findSummariesByIdIn(Collection<String> ids, String viewerId);
+}
@@ -0,0 +1,102 @@
+package backend.PostManagement.repository;
+
+import backend.PostManagement.model.PostManagementModel;
+import backend.PostManagement.model.PostSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+public class PostManagementRepositoryImpl implements PostManagementRepositoryCustom {
+    // A concurrent toggle can flip the state between our like and unlike attempts; retry a few times
+    private static final int MAX_TOGGLE_ATTEMPTS = 3;
+    private static final String[] SUMMARY_FIELDS =
+            {"userID", "title", "description", "category", "media", "likeCount", "commentCount"};
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public PostManagementModel toggleLike(String postId, String userID) {
+        String likeKey = "likes." + userID;
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+
+        for (int attempt = 0; attempt < MAX_TOGGLE_ATTEMPTS; attempt++) {
+            PostManagementModel liked = mongoTemplate.findAndModify(
+                    likeQuery(postId, userID).addCriteria(Criteria.where(likeKey).ne(true)),
+                    new Update().set(likeKey, true).inc("likeCount", 1),
+                    options, PostManagementModel.class);
+            if (liked != null) {
+                return liked;
+            }
+
+            PostManagementModel unliked = mongoTemplate.findAndModify(
+                    likeQuery(postId, userID).addCriteria(Criteria.where(likeKey).is(true)),
+                    new Update().unset(likeKey).inc("likeCount", -1),
+                    options, PostManagementModel.class);
+            if (unliked != null) {
+                return unliked;
+            }
+
+            if (!mongoTemplate.exists(Query.query(Criteria.where("_id").is(postId)), PostManagementModel.class)) {
+                return null;
+            }
+        }
+        throw new IllegalStateException("Could not toggle like on post " + postId);
+    }
+
+    @Override
+    public PostManagementModel incrementCommentCount(String postId, int delta) {
+        Query query = Query.query(Criteria.where("_id").is(postId));
+        query.fields().include("userID", "title", "commentCount");
+        return mongoTemplate.findAndModify(query, new Update().inc("commentCount", delta),
+                FindAndModifyOptions.options().returnNew(true), PostManagementModel.class);
+    }
+
+    @Override
+    public List<PostSummary> findSummaries(Collection<String> userIDs, String beforeId, String viewerId, int limit) {
+        Criteria criteria = new Criteria();
+        if (userIDs != null) {
+            criteria.and("userID").in(userIDs);
+        }
+        if (beforeId != null) {
+            criteria.and("_id").lt(beforeId);
+        }
+        Query query = summaryQuery(criteria, viewerId)
+                .with(Sort.by(Sort.Direction.DESC, "_id"))
+                .limit(limit);
+        return toSummaries(mongoTemplate.find(query, PostManagementModel.class), viewerId);
+    }
+
+    @Override
+    public List<PostSummary> findSummariesByIdIn(Collection<String> ids, String viewerId) {
+        Query query = summaryQuery(Criteria.where("_id").in(ids), viewerId);
+        return toSummaries(mongoTemplate.find(query, PostManagementModel.class), viewerId);
+    }
+
+    // Only the card fields, and of the likes map only the viewer's entry
+    private Query summaryQuery(Criteria criteria, String viewerId) {
+        Query query = Query.query(criteria);
+        query.fields().include(SUMMARY_FIELDS);
+        if (viewerId != null) {
+            query.fields().include("likes." + viewerId);
+        }
+        return query;
+    }
+
+    private List<PostSummary> toSummaries(List<PostManagementModel> posts, String viewerId) {
+        return posts.stream().map(post -> PostSummary.of(post, viewerId)).toList();
+    }
+
+    private Query likeQuery(String postId, String userID) {
+        Query query = Query.query(Criteria.where("_id").is(postId));
+        query.fields().include("userID", "title", "likes." + userID, "likeCount");
+        return query;
+    }
+}
@@ -0,0 +1,38 @@
+package backend.Search.controller;
+
+import backend.Search.model.SearchPage;
+import backend.Search.model.Suggestion;
+import backend.Search.service.SearchService;
+import backend.pagination.CursorPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+@CrossOrigin("http://localhost:3000")
+public class SearchController {
+    @Autowired
+    private SearchService searchService;
+
+    // Posts, learning plans and achievements matching q, most relevant first. type (post, learningPlan,
+    // achievement; repeatable) limits the kinds searched
+    @GetMapping
+    public SearchPage search(
+            @RequestParam String q,
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return searchService.search(q, type, cursor, CursorPage.clampLimit(limit));
+    }
+
+    // Titles starting with q, for autocomplete
+    @GetMapping("/suggest")
+    public List<Suggestion> suggest(
+            @RequestParam String q,
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(required = false) Integer limit) {
+        return searchService.suggest(q, type, limit);
+    }
+}
@@ -0,0 +1,44 @@
+package backend.Search.model;
+
+// One search result; type says which listing id belongs to (post, learningPlan or achievement)
+public class SearchHit {
+    private final String type;
+    private final String id;
+    private final String title;
+    private final String description;
+    private final String category;
+    private final double score;
+
+    public SearchHit(String type, String id, String title, String description, String category, double score) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.category = category;
+        this.score = score;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,19 @@
+package backend.Search.model;
+
+import backend.pagination.CursorPage;
+
+import java.util.List;
+
+// partial means some kinds did not answer within the time budget and are missing from this page
+public class SearchPage extends CursorPage<SearchHit> {
+    private final boolean partial;
+
+    public SearchPage(List<SearchHit> items, String nextCursor, boolean partial) {
+        super(items, nextCursor);
+        this.partial = partial;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+}
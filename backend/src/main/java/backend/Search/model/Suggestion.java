@@ -0,0 +1,26 @@
+package backend.Search.model;
+
+// An autocomplete entry: just enough to show the title and link to it
+public class Suggestion {
+    private final String type;
+    private final String id;
+    private final String title;
+
+    public Suggestion(String type, String id, String title) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+}
@@ -0,0 +1,325 @@
+package backend.Search.service;
+
+import backend.Achievements.model.AchievementsModel;
+import backend.LearningPlan.model.LearningPlanModel;
+import backend.PostManagement.model.PostManagementModel;
+import backend.Search.model.SearchHit;
+import backend.Search.model.SearchPage;
+import backend.Search.model.Suggestion;
+import backend.exception.InvalidCursorException;
+import backend.exception.InvalidSearchException;
+import backend.pagination.CursorPage;
+import com.mongodb.MongoExecutionTimeoutException;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.stereotype.Service;
+
+import java.text.Collator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Search over posts, learning plans and achievements.
+ *
+ * Full-text search runs $text against each collection's text index (title, description, category
+ * and tags, title weighted highest) in parallel and merges the results by Mongo's relevance score.
+ * Pages are keyed on (score, type, id), which is a total order, so the cursor needs no offsets.
+ * Every query carries maxTime and the whole request waits at most search.max-time; kinds that did
+ * not answer in time are left out and the page is marked partial instead of the request failing.
+ * The next cursor of a partial page sends the missing kinds back to where they were, so none of
+ * their hits are skipped.
+ *
+ * Autocomplete is a range scan on the case-insensitive title_prefix index and reads titles only,
+ * which is cheap enough to run on every keystroke.
+ */
+@Service
+public class SearchService {
+    public static final String POSTS = "post";
+    public static final String LEARNING_PLANS = "learningPlan";
+    public static final String ACHIEVEMENTS = "achievement";
+    public static final int DEFAULT_SUGGEST_LIMIT = 10;
+    public static final int MAX_SUGGEST_LIMIT = 20;
+
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final String SCORE = "score";
+    // Must match the collation of the title_prefix indexes, or Mongo will not use them
+    private static final Collation TITLE_COLLATION = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+    // Collates after every real character, so [prefix, prefix + PREFIX_END) is everything starting with prefix
+    private static final String PREFIX_END = "\uFFFF";
+
+    // Sorted by name, which is also the tie-break order between kinds on equal scores
+    private static final SortedMap<String, Class<?>> TYPES = new TreeMap<>(Map.of(
+            POSTS, PostManagementModel.class,
+            LEARNING_PLANS, LearningPlanModel.class,
+            ACHIEVEMENTS, AchievementsModel.class));
+
+    private final MongoTemplate mongoTemplate;
+    private final ExecutorService queries = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration maxTime;
+    private final Duration suggestMaxTime;
+
+    public SearchService(MongoTemplate mongoTemplate,
+                         @Value("${search.max-time:PT0.5S}") Duration maxTime,
+                         @Value("${search.suggest.max-time:PT0.1S}") Duration suggestMaxTime) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxTime = maxTime;
+        this.suggestMaxTime = suggestMaxTime;
+    }
+
+    // types limits the kinds searched; null or empty searches all of them
+    public SearchPage search(String text, Collection<String> types, String cursor, int limit) {
+        String q = requireQuery(text);
+        List<String> kinds = resolveTypes(types);
+        Map<String, SearchCursor> after = cursor == null || cursor.isBlank() ? Map.of() : SearchCursor.decode(cursor);
+
+        Map<String, List<SearchHit>> results = runWithin(maxTime, kinds, type -> () -> searchType(type, q, after.get(type), limit + 1));
+        List<SearchHit> hits = results.values().stream()
+                .flatMap(List::stream)
+                .sorted(SearchCursor.HIT_ORDER)
+                .toList();
+        List<SearchHit> items = hits.size() > limit ? hits.subList(0, limit) : hits;
+        boolean partial = results.size() < kinds.size();
+        if (hits.size() <= limit && !partial) {
+            return new SearchPage(items, null, false);
+        }
+
+        // Kinds that answered continue after the last hit shown. A kind that missed the budget had none of its
+        // hits shown, so it resumes where it was, even though its hits may then rank above ones already seen
+        SearchCursor last = items.isEmpty() ? null : SearchCursor.of(items.get(items.size() - 1));
+        Map<String, SearchCursor> positions = new TreeMap<>();
+        for (String kind : kinds) {
+            SearchCursor position = results.containsKey(kind) && last != null ? last : after.get(kind);
+            if (position != null) {
+                positions.put(kind, position);
+            }
+        }
+        return new SearchPage(items, SearchCursor.encode(positions, kinds), partial);
+    }
+
+    // Titles starting with prefix, ignoring case, in title order
+    public List<Suggestion> suggest(String prefix, Collection<String> types, Integer limit) {
+        String q = requireQuery(prefix);
+        List<String> kinds = resolveTypes(types);
+        int max = limit == null || limit < 1 ? DEFAULT_SUGGEST_LIMIT : Math.min(limit, MAX_SUGGEST_LIMIT);
+
+        Collator collator = Collator.getInstance(Locale.ENGLISH);
+        collator.setStrength(Collator.SECONDARY);
+        return runWithin(suggestMaxTime, kinds, type -> () -> suggestType(type, q, max)).values().stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(Suggestion::getTitle, collator))
+                .limit(max)
+                .toList();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        queries.shutdownNow();
+    }
+
+    private List<SearchHit> searchType(String type, String q, SearchCursor after, int fetch) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        pipeline.add(Aggregation.match(TextCriteria.forDefaultLanguage().matching(q)));
+        pipeline.add(stage("$addFields", new Document(SCORE, new Document("$meta", "textScore"))));
+        if (after != null) {
+            pipeline.add(Aggregation.match(after.criteriaFor(type)));
+        }
+        pipeline.add(stage("$sort", new Document(SCORE, -1).append("_id", 1)));
+        pipeline.add(Aggregation.limit(fetch));
+        pipeline.add(stage("$project", new Document("title", 1).append("description", 1).append("category", 1).append(SCORE, 1)));
+
+        Aggregation aggregation = Aggregation.newAggregation(pipeline)
+                .withOptions(AggregationOptions.builder().maxTime(maxTime).build());
+        return mongoTemplate.aggregate(aggregation, collectionOf(type), Document.class).getMappedResults().stream()
+                .map(doc -> new SearchHit(type, idOf(doc), doc.getString("title"), doc.getString("description"),
+                        doc.getString("category"), doc.get(SCORE, Number.class).doubleValue()))
+                .toList();
+    }
+
+    private List<Suggestion> suggestType(String type, String prefix, int limit) {
+        Query query = Query.query(Criteria.where("title").gte(prefix).lt(prefix + PREFIX_END))
+                .collation(TITLE_COLLATION)
+                .with(Sort.by("title"))
+                .limit(limit)
+                .maxTime(suggestMaxTime);
+        query.fields().include("title");
+        return mongoTemplate.find(query, Document.class, collectionOf(type)).stream()
+                .map(doc -> new Suggestion(type, idOf(doc), doc.getString("title")))
+                .toList();
+    }
+
+    // Runs one query per kind in parallel and keeps the ones that finished within budget
+    private <T> Map<String, List<T>> runWithin(Duration budget, List<String> kinds,
+                                               Function<String, Callable<List<T>>> query) {
+        Map<String, Future<List<T>>> running = new LinkedHashMap<>();
+        kinds.forEach(type -> running.put(type, queries.submit(query.apply(type))));
+
+        long deadline = System.nanoTime() + budget.toNanos();
+        Map<String, List<T>> finished = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<List<T>>> entry : running.entrySet()) {
+            try {
+                finished.put(entry.getKey(), entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+            } catch (ExecutionException e) {
+                if (!isTimeout(e.getCause())) {
+                    throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return finished;
+    }
+
+    // maxTime running out on the server; Spring may or may not have translated it
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoExecutionTimeoutException || cause instanceof QueryTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String requireQuery(String text) {
+        String q = text == null ? "" : text.trim();
+        if (q.isEmpty()) {
+            throw new InvalidSearchException("Search text must not be empty");
+        }
+        if (q.length() > MAX_QUERY_LENGTH) {
+            throw new InvalidSearchException("Search text is longer than " + MAX_QUERY_LENGTH + " characters");
+        }
+        return q;
+    }
+
+    private static List<String> resolveTypes(Collection<String> types) {
+        if (types == null || types.isEmpty()) {
+            return List.copyOf(TYPES.keySet());
+        }
+        for (String type : types) {
+            if (!TYPES.containsKey(type)) {
+                throw new InvalidSearchException("Unknown type: " + type + "; expected one of " + TYPES.keySet());
+            }
+        }
+        return types.stream().distinct().toList();
+    }
+
+    private String collectionOf(String type) {
+        return mongoTemplate.getCollectionName(TYPES.get(type));
+    }
+
+    private static AggregationOperation stage(String operator, Document body) {
+        return context -> new Document(operator, body);
+    }
+
+    private static String idOf(Document doc) {
+        Object id = doc.get("_id");
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+
+    /**
+     * Where a search continues, per kind: the sort key (score, then kind, then id) of the last hit
+     * shown from that kind's point of view. When every kind continues from the same key the cursor
+     * is just that key; otherwise it lists kind=key pairs, where an empty key starts from the top.
+     */
+    record SearchCursor(double score, String type, String id) {
+        static final Comparator<SearchHit> HIT_ORDER = Comparator.comparingDouble(SearchHit::getScore).reversed()
+                .thenComparing(SearchHit::getType)
+                .thenComparing(SearchHit::getId);
+
+        static SearchCursor of(SearchHit hit) {
+            return new SearchCursor(hit.getScore(), hit.getType(), hit.getId());
+        }
+
+        String key() {
+            return score + ":" + type + ":" + id;
+        }
+
+        static String encode(Map<String, SearchCursor> positions, Collection<String> kinds) {
+            boolean shared = positions.keySet().containsAll(kinds) && positions.values().stream().distinct().count() == 1;
+            if (shared) {
+                return CursorPage.encode(positions.values().iterator().next().key());
+            }
+            return CursorPage.encode(kinds.stream()
+                    .map(kind -> kind + "=" + (positions.containsKey(kind) ? positions.get(kind).key() : ""))
+                    .collect(Collectors.joining(",")));
+        }
+
+        static Map<String, SearchCursor> decode(String cursor) {
+            String decoded = CursorPage.decode(cursor);
+            Map<String, SearchCursor> positions = new TreeMap<>();
+            if (!decoded.contains("=")) {
+                SearchCursor shared = parse(decoded, cursor);
+                TYPES.keySet().forEach(kind -> positions.put(kind, shared));
+                return positions;
+            }
+            for (String entry : decoded.split(",")) {
+                String[] parts = entry.split("=", 2);
+                if (parts.length != 2 || !TYPES.containsKey(parts[0])) {
+                    throw new InvalidCursorException("Invalid cursor: " + cursor);
+                }
+                if (!parts[1].isEmpty()) {
+                    positions.put(parts[0], parse(parts[1], cursor));
+                }
+            }
+            return positions;
+        }
+
+        private static SearchCursor parse(String key, String cursor) {
+            String[] parts = key.split(":", 3);
+            try {
+                if (parts.length == 3 && TYPES.containsKey(parts[1])) {
+                    return new SearchCursor(Double.parseDouble(parts[0]), parts[1], parts[2]);
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+
+        // What comes after this key in a collection of the given kind
+        Criteria criteriaFor(String kind) {
+            int order = kind.compareTo(type);
+            if (order > 0) {
+                return Criteria.where(SCORE).lte(score);
+            }
+            if (order < 0) {
+                return Criteria.where(SCORE).lt(score);
+            }
+            Object key = ObjectId.isValid(id) ? new ObjectId(id) : id;
+            return new Criteria().orOperator(
+                    Criteria.where(SCORE).lt(score),
+                    Criteria.where(SCORE).is(score).and("_id").gt(key));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package backend.User.cache;
+
+import backend.User.model.UserModel;
+import backend.User.model.UserSummary;
+import backend.User.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Process-wide cache of userId -> display name and avatar, in front of UserRepository.
+ * Entries are bounded by count and expire after a TTL, which also bounds how stale a
+ * rename made through another backend node can look here. Local profile changes call
+ * {@link #invalidate(String)}. Hit, miss and eviction counts are published as the
+ * "cache.*" meters tagged cache=userNames.
+ */
+@Component
+public class UserNameCache {
+    private final LoadingCache<String, UserSummary> cache;
+
+    public UserNameCache(UserRepository userRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${users.name-cache.max-size:10000}") long maxSize,
+                         @Value("${users.name-cache.ttl:PT10M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public UserSummary load(String id) {
+                        return userRepository.findSummaryById(id).map(UserSummary::of).orElse(null);
+                    }
+
+                    // Misses from getAll are fetched with a single $in query
+                    @Override
+                    public Map<String, UserSummary> loadAll(Set<? extends String> ids) {
+                        return userRepository.findSummariesByIdIn(ids).stream()
+                                .collect(Collectors.toMap(UserModel::getId, UserSummary::of));
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userNames");
+    }
+
+    public Optional<UserSummary> get(String userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(userId));
+    }
+
+    // Users that don't exist are left out of the result
+    public Map<String, UserSummary> getAll(Collection<String> userIds) {
+        return cache.getAll(userIds);
+    }
+
+    public Optional<String> getFullname(String userId) {
+        return get(userId).map(UserSummary::getFullname);
+    }
+
+    public void invalidate(String userId) {
+        cache.invalidate(userId);
+    }
+}
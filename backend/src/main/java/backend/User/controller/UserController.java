@@ -1,36 +1,40 @@
 package backend.User.controller;
 
 import backend.exception.ResourceNotFoundException;
+import backend.Feed.service.FeedService;
 import backend.Notification.model.NotificationModel;
+import backend.User.cache.UserNameCache;
+import backend.User.job.AccountDeletionJob;
+import backend.User.model.AccountDeletion;
 import backend.User.model.UserModel;
-import backend.LearningPlan.model.LearningPlanModel; // Import LearningPlanModel
-import backend.Notification.repository.NotificationRepository;
+import backend.User.model.UserSummary;
+import backend.User.service.FollowService;
+import backend.User.service.NamePropagator;
+import backend.media.ImageVariants;
+import backend.media.MediaResponder;
+import backend.media.MediaStore;
+import backend.pagination.CursorPage;
+import backend.Notification.service.NotificationService;
 import backend.User.repository.UserRepository;
-import backend.Achievements.repository.AchievementsRepository; // Import the repository
-import backend.LearningPlan.repository.LearningPlanRepository; // Import the repository
-import backend.PostManagement.repository.PostManagementRepository; // Import the repository
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.net.URI;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Objects;
 
 @RestController
 @CrossOrigin("http://localhost:3000")
@@ -39,16 +43,31 @@ public class UserController {
     private UserRepository userRepository;
 
     @Autowired
-    private NotificationRepository notificationRepository;
+    private UserNameCache userNameCache;
 
     @Autowired
-    private AchievementsRepository achievementsRepository; // Inject the repository
+    private NotificationService notificationService;
 
     @Autowired
-    private LearningPlanRepository learningPlanRepository; // Inject the repository
+    private FeedService feedService;
 
     @Autowired
-    private PostManagementRepository postManagementRepository; // Inject the repository
+    private FollowService followService;
+
+    @Autowired
+    private AccountDeletionJob accountDeletionJob;
+
+    @Autowired
+    private NamePropagator namePropagator;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private ImageVariants imageVariants;
+
+    @Autowired
+    private MediaResponder mediaResponder;
 
     @Autowired
     private JavaMailSender mailSender; // Add JavaMailSender for sending emails
@@ -99,8 +118,10 @@ public class UserController {
 
     //Display
     @GetMapping("/user")
-    List<UserModel> getAllUsers() {
-        return userRepository.findAll();
+    List<UserSummary> getAllUsers() {
+        return userRepository.findAllSummaries().stream()
+                .map(UserSummary::of)
+                .toList();
     }
 
     @GetMapping("/user/{id}")
@@ -114,22 +135,30 @@ public class UserController {
     UserModel updateProfile(@RequestBody UserModel newUserModel, @PathVariable String id) {
         return userRepository.findById(id)
                 .map(userModel -> {
+                    boolean renamed = !Objects.equals(userModel.getFullname(), newUserModel.getFullname());
+                    String previousPicture = userModel.getProfilePicturePath();
                     userModel.setFullname(newUserModel.getFullname());
                     userModel.setEmail(newUserModel.getEmail());
-                    userModel.setPassword(newUserModel.getPassword());
+                    // The password is never sent to the client, so a blank one means "unchanged"
+                    if (newUserModel.getPassword() != null && !newUserModel.getPassword().isBlank()) {
+                        userModel.setPassword(newUserModel.getPassword());
+                    }
                     userModel.setPhone(newUserModel.getPhone());
                     userModel.setProfilePicturePath(newUserModel.getProfilePicturePath());
                     userModel.setSkills(newUserModel.getSkills()); // Update skills
                     userModel.setBio(newUserModel.getBio()); // Update bio
-                    
-                    // Update postOwnerName in all related posts
-                    List<LearningPlanModel> userPosts = learningPlanRepository.findByPostOwnerID(id);
-                    userPosts.forEach(post -> {
-                        post.setPostOwnerName(newUserModel.getFullname());
-                        learningPlanRepository.save(post);
-                    });
-                    
-                    return userRepository.save(userModel);
+
+                    UserModel savedUser = userRepository.save(userModel);
+                    userNameCache.invalidate(id);
+                    if (!Objects.equals(previousPicture, savedUser.getProfilePicturePath())) {
+                        mediaStore.acquire(savedUser.getProfilePicturePath());
+                        mediaStore.release(previousPicture);
+                    }
+                    // Plans, achievements and comments carry the name too; they are updated in the background
+                    if (renamed && savedUser.getFullname() != null) {
+                        namePropagator.submit(id, savedUser.getFullname());
+                    }
+                    return savedUser;
                 }).orElseThrow(() -> new ResourceNotFoundException(id));
     }
 
@@ -137,25 +166,16 @@ public class UserController {
     public ResponseEntity<?> uploadProfilePicture(@PathVariable String id, @RequestParam("file") MultipartFile file) {
         return userRepository.findById(id).map(user -> {
             try {
-                // Resolve the upload directory as an absolute path
-                File uploadDir = new File(System.getProperty("user.dir"), PROFILE_UPLOAD_DIR);
-
-                // Ensure the upload directory exists
-                if (!uploadDir.exists()) {
-                    uploadDir.mkdirs();
-                }
-
-                // Generate a unique file name
-                String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
-                String uniqueFileName = System.currentTimeMillis() + "_" + UUID.randomUUID() + "." + extension;
-
-                // Save the file to the upload directory
-                Path filePath = uploadDir.toPath().resolve(uniqueFileName);
-                Files.copy(file.getInputStream(), filePath);
+                String previousPicture = user.getProfilePicturePath();
+                String fileName = mediaStore.store(file);
+                imageVariants.generate(ImageVariants.PROFILES, fileName, () -> mediaStore.open(fileName));
 
                 // Save only the file name in the database
-                user.setProfilePicturePath(uniqueFileName);
+                user.setProfilePicturePath(fileName);
                 userRepository.save(user);
+                userNameCache.invalidate(id);
+                mediaStore.acquire(fileName);
+                mediaStore.release(previousPicture);
 
                 return ResponseEntity.ok(Map.of("message", "Profile picture uploaded successfully."));
             } catch (IOException e) {
@@ -165,51 +185,33 @@ public class UserController {
     }
 
     @GetMapping("/uploads/profile/{fileName}")
-    public ResponseEntity<Resource> getProfilePicture(@PathVariable String fileName) {
-        try {
-            // Resolve the upload directory as an absolute path
-            File uploadDir = new File(System.getProperty("user.dir"), PROFILE_UPLOAD_DIR);
-            Path filePath = uploadDir.toPath().resolve(fileName);
-
-            Resource resource = new UrlResource(filePath.toUri());
-            if (resource.exists() || resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
-            }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+    public void getProfilePicture(@PathVariable String fileName,
+                                  @RequestParam(required = false) Integer w,
+                                  HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        // Resolve the upload directory as an absolute path
+        File uploadDir = new File(System.getProperty("user.dir"), PROFILE_UPLOAD_DIR);
+        mediaResponder.serveUpload(ImageVariants.PROFILES, fileName, uploadDir.toPath(), w, request, response);
     }
 
     //delete
     @DeleteMapping("/user/{id}")
     public ResponseEntity<?> deleteProfile(@PathVariable String id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException(id);
-        }
+        UserModel user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(id));
+
+        // The account is removed now; posts, plans, media and the rest are deleted in the background
+        accountDeletionJob.request(user);
+        String statusUrl = "/user/" + id + "/deletion";
+        return ResponseEntity.accepted()
+                .location(URI.create(statusUrl))
+                .body(Map.of("message", "User account deleted. Related data is being removed.", "statusUrl", statusUrl));
+    }
 
-        // Delete user-related data
-        userRepository.findById(id).ifPresent(user -> {
-            // Delete user's posts
-            achievementsRepository.deleteByPostOwnerID(id);
-            learningPlanRepository.deleteByPostOwnerID(id);
-            postManagementRepository.deleteByUserID(id); // Delete user's posts
-            notificationRepository.deleteByUserId(id);
-
-            // Remove user from followers and following lists
-            userRepository.findAll().forEach(otherUser -> {
-                otherUser.getFollowedUsers().remove(id);
-                userRepository.save(otherUser);
-            });
-        });
-
-        // Delete the user account
-        userRepository.deleteById(id);
-
-        return ResponseEntity.ok(Map.of("message", "User account and related data deleted successfully."));
+    @GetMapping("/user/{id}/deletion")
+    public AccountDeletion getDeletionStatus(@PathVariable String id) {
+        return accountDeletionJob.getStatus(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No deletion for user: " + id));
     }
 
     // check email
@@ -221,18 +223,18 @@ public class UserController {
     @PutMapping("/user/{userID}/follow")
     public ResponseEntity<?> followUser(@PathVariable String userID, @RequestBody Map<String, String> request) {
         String followUserID = request.get("followUserID");
-        return userRepository.findById(userID).map(user -> {
-            user.getFollowedUsers().add(followUserID);
-            userRepository.save(user);
-
-            // Create a notification for the followed user
-            String followerFullName = userRepository.findById(userID)
-                    .map(follower -> follower.getFullname())
-                    .orElse("Someone");
-            String message = String.format("%s started following you.", followerFullName);
-            String currentDateTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            NotificationModel notification = new NotificationModel(followUserID, message, false, currentDateTime);
-            notificationRepository.save(notification);
+        if (followUserID == null || followUserID.equals(userID)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Invalid user to follow."));
+        }
+        return userNameCache.get(userID).map(user -> {
+            if (followService.follow(userID, followUserID)) {
+                feedService.onFollow(userID, followUserID);
+
+                // Create a notification for the followed user
+                String followerFullName = user.getFullname() != null ? user.getFullname() : "Someone";
+                notificationService.sendGrouped(followUserID, NotificationModel.TYPE_FOLLOW, followUserID, userID,
+                        followerFullName, " started following you.");
+            }
 
             return ResponseEntity.ok(Map.of("message", "User followed successfully"));
         }).orElseThrow(() -> new ResourceNotFoundException("User not found: " + userID));
@@ -241,9 +243,9 @@ public class UserController {
     @PutMapping("/user/{userID}/unfollow")
     public ResponseEntity<?> unfollowUser(@PathVariable String userID, @RequestBody Map<String, String> request) {
         String unfollowUserID = request.get("unfollowUserID");
-        return userRepository.findById(userID).map(user -> {
-            user.getFollowedUsers().remove(unfollowUserID);
-            userRepository.save(user);
+        return userNameCache.get(userID).map(user -> {
+            followService.unfollow(userID, unfollowUserID);
+            feedService.onUnfollow(userID, unfollowUserID);
             return ResponseEntity.ok(Map.of("message", "User unfollowed successfully"));
         }).orElseThrow(() -> new ResourceNotFoundException("User not found: " + userID));
     }
@@ -255,6 +257,20 @@ public class UserController {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + userID));
     }
 
+    @GetMapping("/user/{userID}/followers")
+    public CursorPage<UserSummary> getFollowers(
+            @PathVariable String userID,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return followService.getFollowers(userID, cursor, CursorPage.clampLimit(limit));
+    }
+
+    // Follower and following counts, answered from the follows indexes
+    @GetMapping("/user/{userID}/followCounts")
+    public Map<String, Long> getFollowCounts(@PathVariable String userID) {
+        return followService.getCounts(userID);
+    }
+
     @PostMapping("/sendVerificationCode")
     public ResponseEntity<?> sendVerificationCode(@RequestBody Map<String, String> request) {
         String email = request.get("email");
@@ -0,0 +1,280 @@
+package backend.User.job;
+
+import backend.Achievements.model.AchievementsModel;
+import backend.Feed.model.TimelineEntry;
+import backend.LearningPlan.model.LearningPlanModel;
+import backend.Notification.model.NotificationModel;
+import backend.PostManagement.model.Comment;
+import backend.PostManagement.model.PostManagementModel;
+import backend.User.cache.UserNameCache;
+import backend.User.model.AccountDeletion;
+import backend.User.model.FollowEdge;
+import backend.User.model.UserModel;
+import backend.User.service.FollowService;
+import backend.jobs.JobLease;
+import backend.jobs.JobLeases;
+import backend.media.ImageVariants;
+import backend.media.MediaStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Deletes everything that belonged to a deleted account, in the background.
+ *
+ * The work is a fixed list of steps, one per collection. Each step deletes in batches of
+ * jobs.account-deletion.batch-size, removes the uploaded files the batch referenced, and adds
+ * its counts to the AccountDeletion record before the next batch. A job lease keeps two nodes
+ * from working on the same account; the sweep restarts deletions whose node went away, and
+ * finished steps are skipped on resume.
+ */
+@Component
+public class AccountDeletionJob {
+    private static final String JOB_NAME = "accountDeletion";
+
+    private final MongoTemplate mongoTemplate;
+    private final JobLeases jobLeases;
+    private final FollowService followService;
+    private final UserNameCache userNameCache;
+    private final MediaStore mediaStore;
+    private final ImageVariants imageVariants;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet(); // On this node
+    private final int batchSize;
+    private final Path mediaDir;
+    private final Path achievementsDir = Paths.get("uploads/achievementsPost");
+    private final Path plansDir = Paths.get("uploads/plan");
+    private final Path profileDir = Paths.get(System.getProperty("user.dir"), "uploads/profile");
+
+    public AccountDeletionJob(MongoTemplate mongoTemplate,
+                              JobLeases jobLeases,
+                              FollowService followService,
+                              UserNameCache userNameCache,
+                              MediaStore mediaStore,
+                              ImageVariants imageVariants,
+                              @Value("${jobs.account-deletion.batch-size:500}") int batchSize,
+                              @Value("${media.upload.dir}") String mediaDir) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobLeases = jobLeases;
+        this.followService = followService;
+        this.userNameCache = userNameCache;
+        this.mediaStore = mediaStore;
+        this.imageVariants = imageVariants;
+        this.batchSize = batchSize;
+        this.mediaDir = Paths.get(mediaDir);
+    }
+
+    // Records the deletion, removes the account itself right away and starts the cascade
+    public AccountDeletion request(UserModel user) {
+        AccountDeletion deletion = new AccountDeletion();
+        deletion.setId(user.getId());
+        deletion.setStatus(AccountDeletion.STATUS_PENDING);
+        deletion.setProfilePicturePath(user.getProfilePicturePath());
+        deletion.setRequestedAt(Instant.now());
+        mongoTemplate.save(deletion);
+
+        mongoTemplate.remove(byId(user.getId()), UserModel.class);
+        userNameCache.invalidate(user.getId());
+        start(user.getId());
+        return deletion;
+    }
+
+    public Optional<AccountDeletion> getStatus(String userId) {
+        return Optional.ofNullable(mongoTemplate.findById(userId, AccountDeletion.class));
+    }
+
+    // Picks up deletions left unfinished by a restart or a failure
+    @Scheduled(fixedDelayString = "${jobs.account-deletion.sweep-interval:PT1M}")
+    public void sweep() {
+        Query unfinished = Query.query(Criteria.where("status").ne(AccountDeletion.STATUS_DONE));
+        unfinished.fields().include("_id");
+        mongoTemplate.find(unfinished, AccountDeletion.class).forEach(deletion -> start(deletion.getId()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private void start(String userId) {
+        // Our own lease would let the sweep start a second run next to one still going here
+        if (!inProgress.add(userId)) {
+            return;
+        }
+        workers.execute(() -> {
+            try {
+                JobLease lease = jobLeases.tryAcquire(JOB_NAME, userId, 0);
+                if (lease != null) {
+                    run(lease, userId);
+                }
+            } catch (RuntimeException e) {
+                // The lease stays ours, so the next sweep retries from the last finished batch
+                System.err.println("Account deletion for " + userId + " failed: " + e.getMessage());
+                mongoTemplate.updateFirst(byId(userId), Update.update("lastError", e.getMessage()), AccountDeletion.class);
+            } finally {
+                inProgress.remove(userId);
+            }
+        });
+    }
+
+    private void run(JobLease lease, String userId) {
+        AccountDeletion deletion = mongoTemplate.findById(userId, AccountDeletion.class);
+        if (deletion == null || AccountDeletion.STATUS_DONE.equals(deletion.getStatus())) {
+            jobLeases.complete(lease);
+            return;
+        }
+        mongoTemplate.updateFirst(byId(userId), Update.update("status", AccountDeletion.STATUS_RUNNING), AccountDeletion.class);
+
+        boolean finished = step(deletion, "user", () -> {
+                    // Normally gone already; covers a crash between saving the record and deleting the user
+                    mongoTemplate.remove(byId(userId), UserModel.class);
+                    return true;
+                })
+                && step(deletion, "achievements", () -> deleteInBatches(lease, userId, "achievements", AchievementsModel.class,
+                        Criteria.where("postOwnerID").is(userId), AchievementsModel::getId,
+                        batch -> deleteFiles(achievementsDir, batch.stream().map(AchievementsModel::getImageUrl).toList()),
+                        "imageUrl"))
+                && step(deletion, "learningPlans", () -> deleteInBatches(lease, userId, "learningPlans", LearningPlanModel.class,
+                        Criteria.where("postOwnerID").is(userId), LearningPlanModel::getId,
+                        batch -> deleteFiles(plansDir, batch.stream().map(LearningPlanModel::getImageUrl).toList()),
+                        "imageUrl"))
+                && step(deletion, "posts", () -> deleteInBatches(lease, userId, "posts", PostManagementModel.class,
+                        Criteria.where("userID").is(userId), PostManagementModel::getId,
+                        this::deletePostDependents,
+                        "media"))
+                && step(deletion, "notifications", () -> deleteInBatches(lease, userId, "notifications", NotificationModel.class,
+                        Criteria.where("userId").is(userId), NotificationModel::getId,
+                        batch -> 0L))
+                && step(deletion, "follows", () -> deleteInBatches(lease, userId, "follows", FollowEdge.class,
+                        new Criteria().orOperator(Criteria.where("followeeId").is(userId), Criteria.where("followerId").is(userId)),
+                        FollowEdge::getId,
+                        batch -> {
+                            followService.removeFollowee(userId, batch);
+                            return 0L;
+                        },
+                        "followerId", "followeeId"))
+                && step(deletion, "timelines", () -> deleteInBatches(lease, userId, "timelines", TimelineEntry.class,
+                        new Criteria().orOperator(Criteria.where("ownerId").is(userId), Criteria.where("authorId").is(userId)),
+                        TimelineEntry::getId,
+                        batch -> 0L,
+                        "_id"))
+                && step(deletion, "profilePicture", () -> {
+                    progress(userId, "profilePicture", 0, deleteFiles(profileDir, List.of(Objects.toString(deletion.getProfilePicturePath(), ""))));
+                    return true;
+                });
+
+        if (finished) {
+            mongoTemplate.updateFirst(byId(userId), new Update()
+                    .set("status", AccountDeletion.STATUS_DONE)
+                    .set("completedAt", Instant.now())
+                    .unset("lastError"), AccountDeletion.class);
+            jobLeases.complete(lease);
+        }
+    }
+
+    // Runs the step unless an earlier run finished it; false means the lease was lost and the run must stop
+    private boolean step(AccountDeletion deletion, String name, BooleanSupplier work) {
+        if (deletion.getCompletedSteps().contains(name)) {
+            return true;
+        }
+        if (!work.getAsBoolean()) {
+            return false;
+        }
+        mongoTemplate.updateFirst(byId(deletion.getId()), new Update().addToSet("completedSteps", name), AccountDeletion.class);
+        return true;
+    }
+
+    // Fetches up to batchSize matching documents (only the listed fields), cleans up after them, then deletes them by id
+    private <T> boolean deleteInBatches(JobLease lease, String userId, String step, Class<T> type, Criteria criteria,
+                                        Function<T, String> idOf, ToLongFunction<List<T>> beforeDelete, String... fields) {
+        while (true) {
+            Query query = Query.query(criteria).limit(batchSize);
+            query.fields().include(fields);
+            List<T> batch = mongoTemplate.find(query, type);
+            if (batch.isEmpty()) {
+                return true;
+            }
+            long files = beforeDelete.applyAsLong(batch);
+            List<String> ids = batch.stream().map(idOf).toList();
+            long deleted = mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), type).getDeletedCount();
+            progress(userId, step, deleted, files);
+            if (!jobLeases.checkpoint(lease, step, deleted)) {
+                return false;
+            }
+        }
+    }
+
+    // Comments and timeline entries of the posts, and their media files
+    private long deletePostDependents(List<PostManagementModel> posts) {
+        List<String> postIds = posts.stream().map(PostManagementModel::getId).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("postId").in(postIds)), Comment.class);
+        mongoTemplate.remove(Query.query(Criteria.where("postId").in(postIds)), TimelineEntry.class);
+        List<String> media = posts.stream()
+                .filter(post -> post.getMedia() != null)
+                .flatMap(post -> post.getMedia().stream())
+                .map(url -> url.replace("/media/", ""))
+                .toList();
+        return deleteFiles(mediaDir, media);
+    }
+
+    // Files from before the media store are deleted; stored blobs are released and left to its collector
+    private long deleteFiles(Path dir, Collection<String> fileNames) {
+        Path base = dir.toAbsolutePath().normalize();
+        long deleted = 0;
+        for (String fileName : fileNames) {
+            if (fileName == null || fileName.isBlank()) {
+                continue;
+            }
+            if (mediaStore.isBlob(fileName)) {
+                mediaStore.release(fileName);
+                continue;
+            }
+            // Names come from the database; never follow one out of its upload directory
+            Path file = base.resolve(fileName).normalize();
+            if (!file.startsWith(base) || file.equals(base)) {
+                continue;
+            }
+            try {
+                if (Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+                imageVariants.delete(file.getFileName().toString());
+            } catch (IOException e) {
+                System.err.println("Failed to delete " + file + ": " + e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    private void progress(String userId, String step, long deleted, long files) {
+        mongoTemplate.updateFirst(byId(userId), new Update()
+                .inc("deleted." + step, deleted)
+                .inc("filesDeleted", files), AccountDeletion.class);
+    }
+
+    private Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+}
@@ -0,0 +1,77 @@
+package backend.User.migration;
+
+import backend.User.model.FollowEdge;
+import backend.User.model.UserModel;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * One-off data migrations for users. Each step only touches documents that have not been
+ * migrated yet, so running them on every startup is cheap and safe.
+ */
+@Component
+public class UserMigrations {
+    private static final String MIGRATIONS_COLLECTION = "migrations";
+    private static final String FOLLOW_EDGES_MIGRATION = "followEdgeBackfill";
+    private static final int CHECKPOINT_EVERY = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserMigrations(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        backfillFollowEdges();
+    }
+
+    // Follows used to live only in followedUsers. Upsert an edge for every one of them, in _id order with a
+    // checkpoint in the migrations collection, so a run cut short resumes where it stopped and a finished run
+    // is not repeated. Edges are keyed by the unique follower/followee pair, so nodes running this at the same
+    // time, or users following someone meanwhile, only meet existing edges
+    void backfillFollowEdges() {
+        Query marker = Query.query(Criteria.where("_id").is(FOLLOW_EDGES_MIGRATION));
+        Document state = mongoTemplate.findOne(marker, Document.class, MIGRATIONS_COLLECTION);
+        if (state != null && state.getBoolean("completed", false)) {
+            return;
+        }
+        Query followers = Query.query(Criteria.where("followedUsers.0").exists(true))
+                .with(Sort.by(Sort.Direction.ASC, "_id"));
+        if (state != null && state.getString("checkpoint") != null) {
+            followers.addCriteria(Criteria.where("_id").gt(state.getString("checkpoint")));
+        }
+        followers.fields().include("followedUsers");
+
+        long created = 0;
+        long seen = 0;
+        try (var users = mongoTemplate.stream(followers, UserModel.class)) {
+            for (UserModel user : (Iterable<UserModel>) users::iterator) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FollowEdge.class);
+                for (String followeeId : user.getFollowedUsers()) {
+                    Query edge = Query.query(Criteria.where("followerId").is(user.getId()).and("followeeId").is(followeeId));
+                    bulk.upsert(edge, new Update().setOnInsert("createdAt", Instant.now()));
+                }
+                created += bulk.execute().getUpserts().size();
+                if (++seen % CHECKPOINT_EVERY == 0) {
+                    // $max, so a slower node running alongside never moves the checkpoint back
+                    mongoTemplate.upsert(marker, new Update().max("checkpoint", user.getId()), MIGRATIONS_COLLECTION);
+                }
+            }
+        }
+        mongoTemplate.upsert(marker, new Update().set("completed", true).set("completedAt", Instant.now()), MIGRATIONS_COLLECTION);
+        if (created > 0) {
+            System.out.println("Created " + created + " follow edges from followedUsers");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package backend.User.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Durable record of one account deletion. The user document is gone as soon as this exists;
+ * AccountDeletionJob then removes everything that belonged to the user and records how far it
+ * got, so a restarted node carries on where the previous one stopped.
+ */
+@Document(collection = "account_deletions")
+public class AccountDeletion {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+
+    @Id
+    private String id; // The deleted user's id
+    @Indexed(name = "status")
+    private String status;
+    private String profilePicturePath; // Kept from the user document so the file can still be removed
+    private Map<String, Long> deleted = new HashMap<>(); // Per step: documents removed so far
+    private Set<String> completedSteps = new HashSet<>();
+    private long filesDeleted;
+    private String lastError;
+    private Instant requestedAt;
+    private Instant completedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getProfilePicturePath() {
+        return profilePicturePath;
+    }
+
+    public void setProfilePicturePath(String profilePicturePath) {
+        this.profilePicturePath = profilePicturePath;
+    }
+
+    public Map<String, Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(Map<String, Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public Set<String> getCompletedSteps() {
+        return completedSteps;
+    }
+
+    public void setCompletedSteps(Set<String> completedSteps) {
+        this.completedSteps = completedSteps;
+    }
+
+    public long getFilesDeleted() {
+        return filesDeleted;
+    }
+
+    public void setFilesDeleted(long filesDeleted) {
+        this.filesDeleted = filesDeleted;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(Instant requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+}
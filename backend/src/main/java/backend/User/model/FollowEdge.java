@@ -0,0 +1,55 @@
+package backend.User.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * followerId follows followeeId. Indexed both ways, so who-follows-whom questions and the
+ * follower/following counts are answered from an index instead of loading users' sets.
+ * UserModel.followedUsers is kept in step for the existing followedUsers endpoint.
+ */
+@Document(collection = "follows")
+@CompoundIndex(name = "followerId_followeeId", def = "{'followerId': 1, 'followeeId': 1}", unique = true)
+@CompoundIndex(name = "followeeId_recency", def = "{'followeeId': 1, '_id': -1}")
+public class FollowEdge {
+    @Id
+    private String id;
+    private String followerId;
+    private String followeeId;
+    private Instant createdAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFollowerId() {
+        return followerId;
+    }
+
+    public void setFollowerId(String followerId) {
+        this.followerId = followerId;
+    }
+
+    public String getFolloweeId() {
+        return followeeId;
+    }
+
+    public void setFolloweeId(String followeeId) {
+        this.followeeId = followeeId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
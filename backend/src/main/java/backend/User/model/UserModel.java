@@ -1,5 +1,6 @@
 package backend.User.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -14,6 +15,7 @@ public class UserModel {
     private String id;
     private String fullname;
     private String email;
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // Accepted on register and update, never returned
     private String password;
     private String phone;
     private String profilePicturePath; // New field for profile picture path
@@ -0,0 +1,36 @@
+package backend.User.model;
+
+// The handful of user fields other features denormalize: display name and avatar
+public class UserSummary {
+    private final String id;
+    private final String fullname;
+    private final String profilePicturePath;
+    private final String googleProfileImage;
+
+    public UserSummary(String id, String fullname, String profilePicturePath, String googleProfileImage) {
+        this.id = id;
+        this.fullname = fullname;
+        this.profilePicturePath = profilePicturePath;
+        this.googleProfileImage = googleProfileImage;
+    }
+
+    public static UserSummary of(UserModel user) {
+        return new UserSummary(user.getId(), user.getFullname(), user.getProfilePicturePath(), user.getGoogleProfileImage());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFullname() {
+        return fullname;
+    }
+
+    public String getProfilePicturePath() {
+        return profilePicturePath;
+    }
+
+    public String getGoogleProfileImage() {
+        return googleProfileImage;
+    }
+}
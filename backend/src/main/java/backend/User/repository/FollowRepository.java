@@ -0,0 +1,25 @@
+package backend.User.repository;
+
+import backend.User.model.FollowEdge;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface FollowRepository extends MongoRepository<FollowEdge, String> {
+    // Served by the followeeId_recency compound index, newest followers first
+    List<FollowEdge> findByFolloweeIdOrderByIdDesc(String followeeId, Pageable pageable);
+    List<FollowEdge> findByFolloweeIdAndIdLessThanOrderByIdDesc(String followeeId, String id, Pageable pageable);
+
+    // Follower ids only, for fan-out; close the stream
+    @Query(value = "{ 'followeeId': ?0 }", fields = "{ 'followerId': 1 }")
+    Stream<FollowEdge> streamByFolloweeId(String followeeId);
+
+    // Index-only counts
+    long countByFolloweeId(String followeeId);
+    long countByFollowerId(String followerId);
+
+    long deleteByFollowerIdAndFolloweeId(String followerId, String followeeId);
+}
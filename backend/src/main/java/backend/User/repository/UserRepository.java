@@ -2,12 +2,30 @@ package backend.User.repository;
 
 import backend.User.model.UserModel;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends MongoRepository<UserModel, String> {
     Optional<UserModel> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // Display name and avatar only, for UserNameCache
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'fullname': 1, 'profilePicturePath': 1, 'googleProfileImage': 1 }")
+    Optional<UserModel> findSummaryById(String id);
+
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'fullname': 1, 'profilePicturePath': 1, 'googleProfileImage': 1 }")
+    List<UserModel> findSummariesByIdIn(Collection<? extends String> ids);
+
+    // Every user as a card, without credentials or the follow and skill sets
+    @Query(value = "{}", fields = "{ 'fullname': 1, 'profilePicturePath': 1, 'googleProfileImage': 1 }")
+    List<UserModel> findAllSummaries();
+
+    // Followed users only, for building the home feed
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'followedUsers': 1 }")
+    Optional<UserModel> findFollowedUsersById(String id);
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package backend.User.service;
+
+import backend.User.cache.UserNameCache;
+import backend.User.model.FollowEdge;
+import backend.User.model.UserModel;
+import backend.User.model.UserSummary;
+import backend.User.repository.FollowRepository;
+import backend.pagination.CursorPage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Follow relationships. The follows edge collection is the source of truth; the followedUsers
+ * set on the follower's document is updated with $addToSet/$pull next to it instead of loading
+ * and re-saving the user.
+ */
+@Service
+public class FollowService {
+    private final FollowRepository followRepository;
+    private final MongoTemplate mongoTemplate;
+    private final UserNameCache userNameCache;
+
+    public FollowService(FollowRepository followRepository, MongoTemplate mongoTemplate, UserNameCache userNameCache) {
+        this.followRepository = followRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.userNameCache = userNameCache;
+    }
+
+    // Returns true if this created the follow, false if it already existed
+    public boolean follow(String followerId, String followeeId) {
+        Query edge = Query.query(Criteria.where("followerId").is(followerId).and("followeeId").is(followeeId));
+        Update update = new Update()
+                .setOnInsert("followerId", followerId)
+                .setOnInsert("followeeId", followeeId)
+                .setOnInsert("createdAt", Instant.now());
+        boolean created = mongoTemplate.upsert(edge, update, FollowEdge.class).getUpsertedId() != null;
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(followerId)),
+                new Update().addToSet("followedUsers", followeeId), UserModel.class);
+        return created;
+    }
+
+    public void unfollow(String followerId, String followeeId) {
+        followRepository.deleteByFollowerIdAndFolloweeId(followerId, followeeId);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(followerId)),
+                new Update().pull("followedUsers", followeeId), UserModel.class);
+    }
+
+    public CursorPage<UserSummary> getFollowers(String userId, String cursor, int limit) {
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<FollowEdge> edges;
+        if (cursor == null || cursor.isBlank()) {
+            edges = followRepository.findByFolloweeIdOrderByIdDesc(userId, pageable);
+        } else {
+            edges = followRepository.findByFolloweeIdAndIdLessThanOrderByIdDesc(userId, CursorPage.decodeObjectId(cursor), pageable);
+        }
+        CursorPage<FollowEdge> page = CursorPage.of(edges, limit, FollowEdge::getId);
+
+        Map<String, UserSummary> users = userNameCache.getAll(page.getItems().stream().map(FollowEdge::getFollowerId).toList());
+        List<UserSummary> followers = page.getItems().stream()
+                .map(edge -> users.get(edge.getFollowerId()))
+                .filter(user -> user != null)
+                .toList();
+        return new CursorPage<>(followers, page.getNextCursor());
+    }
+
+    public Map<String, Long> getCounts(String userId) {
+        return Map.of(
+                "followers", followRepository.countByFolloweeId(userId),
+                "following", followRepository.countByFollowerId(userId));
+    }
+
+    // Takes a deleted user out of the followedUsers of the followers among edges, with one $pull; the caller drops the edges
+    public void removeFollowee(String userId, List<FollowEdge> edges) {
+        List<String> followerIds = edges.stream()
+                .filter(edge -> userId.equals(edge.getFolloweeId()))
+                .map(FollowEdge::getFollowerId)
+                .toList();
+        if (!followerIds.isEmpty()) {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(followerIds)),
+                    new Update().pull("followedUsers", userId), UserModel.class);
+        }
+    }
+}
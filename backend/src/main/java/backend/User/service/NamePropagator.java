@@ -0,0 +1,109 @@
+package backend.User.service;
+
+import backend.Achievements.model.AchievementsModel;
+import backend.LearningPlan.model.LearningPlanModel;
+import backend.PostManagement.model.Comment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies a renamed user's new name into the documents that store it next to their owner id.
+ *
+ * Renames are queued and applied in the background, so the profile update does not wait. The
+ * queue is the name_propagation collection, one document per user, so renames survive a restart
+ * and any node can apply them. Each run takes up to users.name-propagation.batch-size queued
+ * renames and sends one unordered bulk write per collection, with one updateMany per user that
+ * only touches documents still carrying another name. A rename is dequeued only once applied,
+ * and only if the user was not renamed again meanwhile, in which case the latest name is written
+ * on the next run.
+ */
+@Component
+public class NamePropagator {
+    // Collection -> (owner id field, denormalized name field)
+    private static final List<Target> TARGETS = List.of(
+            new Target("learningPlans", LearningPlanModel.class, "postOwnerID", "postOwnerName"),
+            new Target("achievements", AchievementsModel.class, "postOwnerID", "postOwnerName"),
+            new Target("comments", Comment.class, "userID", "userFullName"));
+
+    private static final String QUEUE_COLLECTION = "name_propagation";
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final MeterRegistry meterRegistry;
+    private final Timer duration;
+    private final Counter failed;
+
+    public NamePropagator(MongoTemplate mongoTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${users.name-propagation.batch-size:100}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        Gauge.builder("users.name_propagation.pending", mongoTemplate, template -> template.estimatedCount(QUEUE_COLLECTION))
+                .description("Renames waiting to be copied into other collections")
+                .register(meterRegistry);
+        this.duration = Timer.builder("users.name_propagation.duration")
+                .description("Time to apply one batch of renames to all collections")
+                .register(meterRegistry);
+        this.failed = Counter.builder("users.name_propagation.failed")
+                .description("Batches of renames that failed and stay queued")
+                .register(meterRegistry);
+    }
+
+    public void submit(String userId, String fullname) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)),
+                new Update().set("fullname", fullname).set("submittedAt", Instant.now()), QUEUE_COLLECTION);
+    }
+
+    @Scheduled(fixedDelayString = "${users.name-propagation.interval:PT1S}")
+    public void propagate() {
+        while (true) {
+            Map<String, String> batch = new HashMap<>();
+            mongoTemplate.find(new Query().limit(batchSize), Document.class, QUEUE_COLLECTION)
+                    .forEach(rename -> batch.put(String.valueOf(rename.get("_id")), rename.getString("fullname")));
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                duration.record(() -> apply(batch));
+            } catch (RuntimeException e) {
+                failed.increment();
+                System.err.println("Failed to propagate " + batch.size() + " renames: " + e.getMessage());
+                return;
+            }
+            // A user renamed again in between keeps their entry, now with the newer name
+            batch.forEach((userId, fullname) -> mongoTemplate.remove(
+                    Query.query(Criteria.where("_id").is(userId).and("fullname").is(fullname)), QUEUE_COLLECTION));
+        }
+    }
+
+    private void apply(Map<String, String> renames) {
+        for (Target target : TARGETS) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, target.type);
+            renames.forEach((userId, fullname) -> bulk.updateMulti(
+                    Query.query(Criteria.where(target.ownerField).is(userId).and(target.nameField).ne(fullname)),
+                    Update.update(target.nameField, fullname)));
+            int modified = bulk.execute().getModifiedCount();
+            meterRegistry.counter("users.name_propagation.updated", "collection", target.name).increment(modified);
+        }
+    }
+
+    private record Target(String name, Class<?> type, String ownerField, String nameField) {
+    }
+}
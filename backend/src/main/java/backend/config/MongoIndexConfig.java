@@ -0,0 +1,59 @@
+package backend.config;
+
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes declared on our documents (@Indexed / @CompoundIndex) at startup and
+ * verifies they are present afterwards. Spring Boot leaves auto index creation off, so without
+ * this a missing index only shows up as a slow collection scan.
+ */
+@Component
+public class MongoIndexConfig {
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            List<IndexDefinition> declared = new ArrayList<>();
+            resolver.resolveIndexFor(entity.getTypeInformation()).forEach(declared::add);
+            declared.forEach(indexOps::ensureIndex);
+
+            Set<String> present = indexOps.getIndexInfo().stream()
+                    .map(IndexInfo::getName)
+                    .collect(Collectors.toSet());
+            for (IndexDefinition index : declared) {
+                Object name = index.getIndexOptions().get("name");
+                if (name != null && !present.contains(name.toString())) {
+                    throw new IllegalStateException("Index " + name + " is missing on " + entity.getCollection());
+                }
+            }
+        }
+    }
+}
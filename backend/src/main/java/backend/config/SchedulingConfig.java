@@ -0,0 +1,10 @@
+package backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Registers the @Scheduled jobs (learning plan expiry notifications)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
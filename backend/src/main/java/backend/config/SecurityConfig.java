@@ -1,8 +1,13 @@
 package backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.web.cors.CorsConfiguration;
@@ -12,6 +17,7 @@ import org.springframework.web.filter.CorsFilter;
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
+    private static final String ANALYTICS_ROLE = "ANALYTICS";
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -29,16 +35,36 @@ public class SecurityConfig {
                                 "/uploads/profile/**",
                                 "/learningPlan/**",
                                 "/achievements/**",
-                                "/notifications/**"
+                                "/notifications/**",
+                                "/feed/**",
+                                "/search/**"
                         ).permitAll()
+                        // Bulk dumps include every user's contact details: only for the analytics account
+                        .requestMatchers("/export/**").hasRole(ANALYTICS_ROLE)
                         .anyRequest().authenticated()
                 )
+                .httpBasic(Customizer.withDefaults())
                 .oauth2Login(oauth2 -> oauth2
                         .defaultSuccessUrl("/oauth2/success", true)
                 );
         return http.build();
     }
 
+    // The analytics account for /export, over HTTP Basic. export.analytics.password is an encoded password such
+    // as {bcrypt}...; without one there is no such account and exports are refused
+    @Bean
+    public UserDetailsService analyticsUsers(
+            @Value("${export.analytics.username:analytics}") String username,
+            @Value("${export.analytics.password:}") String encodedPassword) {
+        if (encodedPassword.isBlank()) {
+            return new InMemoryUserDetailsManager();
+        }
+        return new InMemoryUserDetailsManager(User.withUsername(username)
+                .password(encodedPassword)
+                .roles(ANALYTICS_ROLE)
+                .build());
+    }
+
     @Bean
     public CorsFilter corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,11 @@
+package backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidMediaException extends RuntimeException {
+    public InvalidMediaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidSearchException extends RuntimeException {
+    public InvalidSearchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,152 @@
+package backend.export;
+
+import backend.Achievements.model.AchievementsModel;
+import backend.LearningPlan.model.LearningPlanModel;
+import backend.PostManagement.model.PostManagementModel;
+import backend.User.model.UserModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Whole-collection exports for analytics, as newline-delimited JSON in _id order.
+ *
+ * Documents are read through a Mongo cursor on a virtual thread and sent in chunks of
+ * export.flush-every documents, so memory stays flat however large the collection is and the
+ * response is flushed once per chunk. A slow client blocks the sending thread, not the cursor
+ * reads of other exports. Exports get their own export.timeout instead of the short default
+ * for async requests. since restricts the export to documents
+ * created at or after an ISO-8601 instant, or to ids after a given id (the last line of the
+ * previous export), for incremental pulls.
+ */
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${export.cursor-batch-size:500}")
+    private int cursorBatchSize;
+
+    @Value("${export.flush-every:500}")
+    private int flushEvery;
+
+    @Value("${export.timeout:PT1H}")
+    private Duration timeout;
+
+    private final ExecutorService exporters = Executors.newVirtualThreadPerTaskExecutor();
+
+    @GetMapping("/posts")
+    public ResponseEntity<ResponseBodyEmitter> exportPosts(@RequestParam(required = false) String since) {
+        return export(PostManagementModel.class, since);
+    }
+
+    @GetMapping("/learningPlans")
+    public ResponseEntity<ResponseBodyEmitter> exportLearningPlans(@RequestParam(required = false) String since) {
+        return export(LearningPlanModel.class, since);
+    }
+
+    @GetMapping("/achievements")
+    public ResponseEntity<ResponseBodyEmitter> exportAchievements(@RequestParam(required = false) String since) {
+        return export(AchievementsModel.class, since);
+    }
+
+    // Without password; it is write-only in JSON, and not even read here
+    @GetMapping("/users")
+    public ResponseEntity<ResponseBodyEmitter> exportUsers(@RequestParam(required = false) String since) {
+        return export(UserModel.class, since, "password");
+    }
+
+    private <T> ResponseEntity<ResponseBodyEmitter> export(Class<T> type, String since, String... excludedFields) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(cursorBatchSize);
+        if (since != null && !since.isBlank()) {
+            Criteria idFilter = sinceFilter(since);
+            if (idFilter == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            query.addCriteria(idFilter);
+        }
+        query.fields().exclude(excludedFields);
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout.toMillis());
+        exporters.execute(() -> {
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            try (Stream<T> documents = mongoTemplate.stream(query, type);
+                 SequenceWriter writer = objectMapper.writer()
+                         .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                         .withRootValueSeparator("\n")
+                         .writeValues(chunk)) {
+                long written = 0;
+                for (T document : (Iterable<T>) documents::iterator) {
+                    writer.write(document);
+                    if (++written % flushEvery == 0) {
+                        writer.flush();
+                        send(emitter, chunk);
+                    }
+                }
+                writer.flush();
+                if (written > 0) {
+                    chunk.write('\n');
+                }
+                send(emitter, chunk);
+                emitter.complete();
+            } catch (IOException | RuntimeException e) {
+                // Also how a client that went away or an expired export ends up
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(NDJSON).body(emitter);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        exporters.shutdownNow();
+    }
+
+    private static void send(ResponseBodyEmitter emitter, ByteArrayOutputStream chunk) throws IOException {
+        if (chunk.size() > 0) {
+            emitter.send(chunk.toByteArray(), NDJSON);
+            chunk.reset();
+        }
+    }
+
+    // An id resumes after that document; an instant starts at the first document created then. Null if neither
+    private Criteria sinceFilter(String since) {
+        if (ObjectId.isValid(since)) {
+            return Criteria.where("_id").gt(new ObjectId(since));
+        }
+        try {
+            // The smallest id with that timestamp: seconds since the epoch, then all zeros
+            String smallestId = String.format("%08x", Instant.parse(since).getEpochSecond()) + "0".repeat(16);
+            return Criteria.where("_id").gte(new ObjectId(smallestId));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package backend.jobs;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A time-limited claim on one partition of one run of a background job. Whoever holds an
+ * unexpired lease does the work; the checkpoint lets a later holder resume where a crashed
+ * one stopped instead of starting over.
+ */
+@Document(collection = "job_leases")
+public class JobLease {
+    @Id
+    private String id; // <job>:<runKey>:<partition>
+    private String owner;
+    private Instant expiresAt;
+    private String checkpoint;
+    private long processed;
+    private boolean completed;
+    private List<String> bounds; // Only on a run's <job>:<runKey>:bounds document
+    @Indexed(name = "createdAt_ttl", expireAfter = "7d")
+    private Instant createdAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public List<String> getBounds() {
+        return bounds;
+    }
+
+    public void setBounds(List<String> bounds) {
+        this.bounds = bounds;
+    }
+}
@@ -0,0 +1,102 @@
+package backend.jobs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Mongo-backed leases so that several backend nodes can share a scheduled job without
+ * doing the same work twice. Every write is conditional on this node still being the owner.
+ */
+@Component
+public class JobLeases {
+    private final MongoTemplate mongoTemplate;
+    private final Duration leaseTtl;
+    private final String nodeId;
+
+    public JobLeases(MongoTemplate mongoTemplate, @Value("${jobs.lease-ttl:PT5M}") Duration leaseTtl) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaseTtl = leaseTtl;
+        this.nodeId = hostName() + ":" + UUID.randomUUID();
+    }
+
+    // Returns the lease if this node now holds it, or null if another live node does or the partition is already done
+    public JobLease tryAcquire(String job, String runKey, int partition) {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(job + ":" + runKey + ":" + partition)
+                .and("completed").ne(true)
+                .orOperator(Criteria.where("expiresAt").lt(now), Criteria.where("owner").is(nodeId)));
+        Update update = new Update()
+                .set("owner", nodeId)
+                .set("expiresAt", now.plus(leaseTtl))
+                .setOnInsert("processed", 0L)
+                .setOnInsert("completed", false)
+                .setOnInsert("createdAt", now);
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), JobLease.class);
+        } catch (DuplicateKeyException e) {
+            // The lease exists but did not match: held by another node, or completed
+            return null;
+        }
+    }
+
+    // Records progress and extends the lease; false means the lease was lost and the caller must stop
+    public boolean checkpoint(JobLease lease, String checkpoint, long processedDelta) {
+        Update update = new Update()
+                .set("checkpoint", checkpoint)
+                .inc("processed", processedDelta)
+                .set("expiresAt", Instant.now().plus(leaseTtl));
+        return mongoTemplate.updateFirst(ownedBy(lease), update, JobLease.class).getModifiedCount() > 0;
+    }
+
+    public void complete(JobLease lease) {
+        mongoTemplate.updateFirst(ownedBy(lease), new Update().set("completed", true), JobLease.class);
+    }
+
+    // The partition bounds of one run. The first node to ask stores its proposal and every other node reads
+    // that back, so all of them split the run the same way even if the data changes in between
+    public List<String> partitionBounds(String job, String runKey, Supplier<List<String>> proposal) {
+        String id = job + ":" + runKey + ":bounds";
+        JobLease stored = mongoTemplate.findById(id, JobLease.class);
+        if (stored != null) {
+            return stored.getBounds();
+        }
+        Update update = new Update()
+                .setOnInsert("bounds", proposal.get())
+                .setOnInsert("completed", true)
+                .setOnInsert("createdAt", Instant.now());
+        try {
+            return mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(id)), update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), JobLease.class).getBounds();
+        } catch (DuplicateKeyException e) {
+            // Another node stored its bounds first
+            return mongoTemplate.findById(id, JobLease.class).getBounds();
+        }
+    }
+
+    private Query ownedBy(JobLease lease) {
+        return Query.query(Criteria.where("_id").is(lease.getId()).and("owner").is(nodeId));
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package backend.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Where media blobs are kept; MediaStore does the naming and reference counting on top. Pick the
+ * implementation with media.blob-store: "local" (default) for a directory on this node, "s3" for
+ * an S3-compatible bucket that every node shares.
+ */
+public interface BlobStore {
+    // Stores file under key. The file may be moved rather than copied
+    void put(String key, Path file, String contentType) throws IOException;
+
+    // Throws NoSuchFileException if there is no such blob
+    InputStream open(String key) throws IOException;
+
+    // Deletes the blob unless keep, asked as late as the store allows, says it is wanted again. True if it was deleted
+    boolean delete(String key, BooleanSupplier keep) throws IOException;
+
+    // The blob as a file on this node, if this store keeps them on local disk
+    Optional<Path> localFile(String key);
+
+    // A short-lived URL clients can fetch the blob from without going through us, if the store has one
+    Optional<URI> downloadUrl(String key);
+}
@@ -0,0 +1,293 @@
+package backend.media;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Downscaled copies of uploaded images, so list views can fetch a tile instead of the original.
+ *
+ * Every image gets a variant per width in media.variants.widths that is narrower than the image
+ * itself. They are made on a small fixed pool right after upload, and on first request for
+ * images uploaded before this existed; decoding a large photo takes a lot of heap, which is why
+ * the pool and its queue are bounded. Variants are files under media.variants.dir/<kind>/<width>,
+ * and which file answers a given request is cached in memory. With a remote blob store they are
+ * a cache local to each node, made from a download of the original. Anything ImageIO cannot write
+ * (videos, GIFs) is always served as uploaded.
+ */
+@Component
+public class ImageVariants {
+    public static final String MEDIA = "media";
+    public static final String PLANS = "plan";
+    public static final String ACHIEVEMENTS = "achievements";
+    public static final String PROFILES = "profile";
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final Path dir;
+    private final int[] widths;
+    private final Duration wait;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, Optional<Path>> resolved;
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageVariants(@Value("${media.variants.dir:uploads/variants}") String dir,
+                         @Value("${media.variants.widths:320,640,1280}") int[] widths,
+                         @Value("${media.variants.workers:2}") int workers,
+                         @Value("${media.variants.queue:200}") int queue,
+                         @Value("${media.variants.cache-size:10000}") long cacheSize,
+                         @Value("${media.variants.wait:PT5S}") Duration wait) {
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.widths = Arrays.stream(widths).sorted().toArray();
+        this.wait = wait;
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue));
+        this.resolved = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    // Opens the original image; for blobs that may be a download from the blob store
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    // Queues the variants of a freshly uploaded image. If the queue is full they are made on first request instead
+    public void generate(String kind, String fileName, Source source) {
+        if (formatOf(fileName) == null) {
+            return;
+        }
+        try {
+            start(kind, fileName, source);
+        } catch (RejectedExecutionException e) {
+            // Left for the first request
+        }
+    }
+
+    // The file to serve for a local image: its variant for the requested width, or the image itself
+    public Path resolve(String kind, Path source, Integer requestedWidth) {
+        return variant(kind, source.getFileName().toString(), () -> Files.newInputStream(source), requestedWidth)
+                .orElse(source);
+    }
+
+    /**
+     * The narrowest variant at least requestedWidth wide. Empty, meaning serve the original, when
+     * no width was asked for, no variant is that wide, the image is narrower than the variant, or
+     * the variant could not be made in time.
+     */
+    public Optional<Path> variant(String kind, String fileName, Source source, Integer requestedWidth) {
+        if (requestedWidth == null || formatOf(fileName) == null) {
+            return Optional.empty();
+        }
+        int width = widthFor(requestedWidth);
+        if (width == -1) {
+            return Optional.empty();
+        }
+
+        Path variant = variantPath(kind, width, fileName);
+        String cacheKey = cacheKey(kind, width, fileName);
+        Optional<Path> cached = resolved.getIfPresent(cacheKey);
+        if (cached != null && cached.map(Files::exists).orElse(true)) {
+            return cached;
+        }
+        if (!Files.exists(variant) && !awaitGeneration(kind, fileName, source)) {
+            return Optional.empty();
+        }
+        Optional<Path> result = Files.exists(variant) ? Optional.of(variant) : Optional.empty();
+        resolved.put(cacheKey, result);
+        return result;
+    }
+
+    /**
+     * False when variant would answer requestedWidth with the original only because the variant could
+     * not be made in time, so the answer may change on a later request. True for every other answer.
+     */
+    public boolean isSettled(String kind, String fileName, Integer requestedWidth) {
+        if (requestedWidth == null || formatOf(fileName) == null) {
+            return true;
+        }
+        int width = widthFor(requestedWidth);
+        return width == -1 || resolved.getIfPresent(cacheKey(kind, width, fileName)) != null;
+    }
+
+    // Removes the variants of a deleted file, whatever kind they were made for
+    public void delete(String fileName) {
+        if (fileName == null || fileName.isBlank() || !Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> kinds = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path kind : kinds) {
+                for (int width : widths) {
+                    Path variant = kind.resolve(String.valueOf(width)).resolve(fileName).normalize();
+                    if (variant.startsWith(kind)) {
+                        Files.deleteIfExists(variant);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to delete variants of " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private boolean awaitGeneration(String kind, String fileName, Source source) {
+        try {
+            start(kind, fileName, source).get(wait.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException | TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // One generation per image at a time; concurrent requests for the same image wait on the same task
+    private CompletableFuture<Void> start(String kind, String fileName, Source source) {
+        String key = kind + "/" + fileName;
+        CompletableFuture<Void> task = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(key, task);
+        if (running != null) {
+            return running;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generateAll(kind, fileName, source);
+                } catch (IOException | RuntimeException e) {
+                    // Not retried: the original is served instead, and that answer is cached like any other
+                    System.err.println("Failed to make variants of " + fileName + ": " + e.getMessage());
+                } finally {
+                    task.complete(null);
+                    inFlight.remove(key, task);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, task);
+            throw e;
+        }
+        return task;
+    }
+
+    private void generateAll(String kind, String fileName, Source source) throws IOException {
+        String format = formatOf(fileName);
+        BufferedImage image;
+        try (InputStream in = source.open()) {
+            image = ImageIO.read(in);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (image == null) {
+            return;
+        }
+        for (int width : widths) {
+            Path variant = variantPath(kind, width, fileName);
+            if (width < image.getWidth() && !Files.exists(variant)) {
+                write(resize(image, width, "png".equals(format)), format, variant);
+            }
+        }
+    }
+
+    // Halves the size until close, then scales the rest of the way; one big bilinear step would alias
+    private static BufferedImage resize(BufferedImage image, int width, boolean alpha) {
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(targetHeight, h / 2);
+            BufferedImage next = new BufferedImage(w, h, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, w, h, null);
+            graphics.dispose();
+            current = next;
+        } while (w != width || h != targetHeight);
+        return current;
+    }
+
+    // Written next to the target and renamed, so a reader never sees half a file
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // The narrowest configured width at least requestedWidth wide, or -1
+    private int widthFor(int requestedWidth) {
+        return Arrays.stream(widths).filter(w -> w >= requestedWidth).findFirst().orElse(-1);
+    }
+
+    private static String cacheKey(String kind, int width, String fileName) {
+        return kind + "/" + width + "/" + fileName;
+    }
+
+    private Path variantPath(String kind, int width, String fileName) {
+        return dir.resolve(kind).resolve(String.valueOf(width)).resolve(fileName);
+    }
+
+    // The ImageIO format name for the file, or null if we do not make variants of it
+    private static String formatOf(String fileName) {
+        String extension = StringUtils.getFilenameExtension(fileName);
+        if (extension == null) {
+            return null;
+        }
+        return switch (extension.toLowerCase(Locale.ROOT)) {
+            case "jpg", "jpeg" -> "jpg";
+            case "png" -> "png";
+            default -> null;
+        };
+    }
+}
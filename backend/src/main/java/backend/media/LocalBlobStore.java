@@ -0,0 +1,88 @@
+package backend.media;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Blobs as files in media.store.dir, the same directory MediaStore stages uploads in, so a put
+ * is an atomic rename. Only right for a single node, or a directory all nodes mount.
+ */
+@Component
+@ConditionalOnProperty(name = "media.blob-store", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStore implements BlobStore {
+    private final Path dir;
+
+    public LocalBlobStore(@Value("${media.store.dir:uploads/blobs}") String dir) {
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create media store directory " + this.dir, e);
+        }
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        Path target = resolve(key);
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    // Moves the file aside first, and puts it back if keep says the same content was uploaded meanwhile
+    @Override
+    public boolean delete(String key, BooleanSupplier keep) throws IOException {
+        Path file = resolve(key);
+        Path doomed = resolve(key + ".deleting");
+        if (!Files.exists(file)) {
+            return false;
+        }
+        Files.move(file, doomed, StandardCopyOption.ATOMIC_MOVE);
+        if (keep.getAsBoolean() && !Files.exists(file)) {
+            Files.move(doomed, file, StandardCopyOption.ATOMIC_MOVE);
+            return false;
+        }
+        Files.deleteIfExists(doomed);
+        return true;
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        Path file = resolve(key);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    // We serve local blobs ourselves
+    @Override
+    public Optional<URI> downloadUrl(String key) {
+        return Optional.empty();
+    }
+
+    private Path resolve(String key) {
+        Path file = dir.resolve(key).normalize();
+        if (!file.getParent().equals(dir)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return file;
+    }
+}
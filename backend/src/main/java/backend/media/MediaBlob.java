@@ -0,0 +1,62 @@
+package backend.media;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Bookkeeping for one stored file: how many documents reference it, and when that last changed.
+ * Blobs without references are garbage-collected once updatedAt is older than the grace period.
+ */
+@Document(collection = "media_blobs")
+@CompoundIndex(name = "refs_updatedAt", def = "{'refs': 1, 'updatedAt': 1}")
+public class MediaBlob {
+    @Id
+    private String id; // <sha-256>.<extension>, also the file name
+    private long refs;
+    private long size;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getRefs() {
+        return refs;
+    }
+
+    public void setRefs(long refs) {
+        this.refs = refs;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,32 @@
+package backend.media;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// Post media. w, if given, selects a downscaled variant for images; see ImageVariants
+@RestController
+public class MediaController {
+    @Autowired
+    private MediaResponder mediaResponder;
+
+    @Value("${media.upload.dir}")
+    private String uploadDir;
+
+    @GetMapping("/media/{filename:.+}")
+    public void getMedia(@PathVariable String filename,
+                         @RequestParam(required = false) Integer w,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        // Uploads from before the media store are still in the upload directory
+        mediaResponder.serveUpload(ImageVariants.MEDIA, filename, Paths.get(uploadDir), w, request, response);
+    }
+}
@@ -0,0 +1,49 @@
+package backend.media;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The upload formats we accept, recognised by their leading bytes rather than by the
+ * client-supplied content type or file name.
+ */
+public enum MediaFormat {
+    JPEG("jpg", 0, new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+    PNG("png", 0, new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}),
+    MP4("mp4", 4, new byte[]{'f', 't', 'y', 'p'}); // ISO base media: box size, then the ftyp box
+
+    // Enough leading bytes to tell every format apart
+    public static final int HEADER_BYTES = 12;
+
+    private final String extension;
+    private final int offset;
+    private final byte[] magic;
+
+    MediaFormat(String extension, int offset, byte[] magic) {
+        this.extension = extension;
+        this.offset = offset;
+        this.magic = magic;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Looks at the bytes between position and limit without consuming them
+    public static Optional<MediaFormat> detect(ByteBuffer head) {
+        return Arrays.stream(values()).filter(format -> format.matches(head)).findFirst();
+    }
+
+    private boolean matches(ByteBuffer head) {
+        if (head.remaining() < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head.get(head.position() + offset + i) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+package backend.media;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stages the files of one request in parallel, so an upload takes as long as its slowest file
+ * rather than the sum of all of them. Either every file is staged or none is: on the first
+ * failure the others are discarded and the failure is rethrown.
+ */
+@Component
+public class MediaIngestor {
+    private final MediaStore mediaStore;
+    private final long maxFileBytes;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MediaIngestor(MediaStore mediaStore,
+                         @Value("${media.upload.max-file-size:50MB}") DataSize maxFileSize) {
+        this.mediaStore = mediaStore;
+        this.maxFileBytes = maxFileSize.toBytes();
+    }
+
+    public List<MediaStore.Staged> stage(List<MultipartFile> files, Set<MediaFormat> allowed) throws IOException {
+        List<Future<MediaStore.Staged>> pending = new ArrayList<>();
+        for (MultipartFile file : files) {
+            pending.add(workers.submit(() -> {
+                try (InputStream in = file.getInputStream()) {
+                    return mediaStore.stage(in, file.getOriginalFilename(), allowed, maxFileBytes);
+                }
+            }));
+        }
+
+        List<MediaStore.Staged> staged = new ArrayList<>();
+        Throwable failure = null;
+        for (Future<MediaStore.Staged> future : pending) {
+            try {
+                staged.add(future.get());
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure != null ? failure : e;
+            }
+        }
+        if (failure == null) {
+            return staged;
+        }
+
+        discard(staged);
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        throw new IOException("Failed to stage uploads", failure);
+    }
+
+    // Call once the document referencing the blobs is saved. On failure nothing stays committed
+    public void commit(List<MediaStore.Staged> staged) {
+        for (int i = 0; i < staged.size(); i++) {
+            try {
+                mediaStore.commit(staged.get(i));
+            } catch (IOException e) {
+                rollBack(staged, i);
+                throw new UncheckedIOException("Failed to store " + staged.get(i).name(), e);
+            } catch (RuntimeException e) {
+                rollBack(staged, i);
+                throw e;
+            }
+        }
+    }
+
+    public void discard(List<MediaStore.Staged> staged) {
+        staged.forEach(mediaStore::discard);
+    }
+
+    // Releases the blobs committed before index failed and drops the rest
+    private void rollBack(List<MediaStore.Staged> staged, int failed) {
+        staged.subList(0, failed).forEach(blob -> mediaStore.release(blob.name()));
+        discard(staged.subList(failed, staged.size()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+}
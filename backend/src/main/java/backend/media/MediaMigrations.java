@@ -0,0 +1,133 @@
+package backend.media;
+
+import backend.Achievements.model.AchievementsModel;
+import backend.LearningPlan.model.LearningPlanModel;
+import backend.PostManagement.model.PostManagementModel;
+import backend.User.model.UserModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Moves uploads from before the media store out of the per-feature upload directories and into
+ * the blob store, so that every node can serve them. Only files present on this node are moved,
+ * so each node hands over its own on startup. A document is pointed at its blob with an update
+ * that only matches while it still names the old file; if someone changed it first the blob is
+ * released again and the old file is left alone.
+ */
+@Component
+public class MediaMigrations {
+    private static final String MEDIA_URL_PREFIX = "/media/";
+
+    private final MongoTemplate mongoTemplate;
+    private final MediaStore mediaStore;
+    private final ImageVariants imageVariants;
+    private final Path mediaDir;
+    private final Path plansDir = Paths.get("uploads/plan");
+    private final Path achievementsDir = Paths.get("uploads/achievementsPost");
+    private final Path profileDir = Paths.get(System.getProperty("user.dir"), "uploads/profile");
+
+    public MediaMigrations(MongoTemplate mongoTemplate,
+                           MediaStore mediaStore,
+                           ImageVariants imageVariants,
+                           @Value("${media.upload.dir}") String mediaDir) {
+        this.mongoTemplate = mongoTemplate;
+        this.mediaStore = mediaStore;
+        this.imageVariants = imageVariants;
+        this.mediaDir = Paths.get(mediaDir);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        long moved = importPostMedia()
+                + importField(LearningPlanModel.class, "imageUrl", LearningPlanModel::getId, LearningPlanModel::getImageUrl, plansDir)
+                + importField(AchievementsModel.class, "imageUrl", AchievementsModel::getId, AchievementsModel::getImageUrl, achievementsDir)
+                + importField(UserModel.class, "profilePicturePath", UserModel::getId, UserModel::getProfilePicturePath, profileDir);
+        if (moved > 0) {
+            System.out.println("Moved " + moved + " old uploads into the media store");
+        }
+    }
+
+    // Post media are /media/<name> URLs; each list entry is swapped on its own with the positional operator
+    long importPostMedia() {
+        Query withMedia = Query.query(Criteria.where("media.0").exists(true));
+        withMedia.fields().include("media");
+
+        long moved = 0;
+        try (var posts = mongoTemplate.stream(withMedia, PostManagementModel.class)) {
+            for (PostManagementModel post : (Iterable<PostManagementModel>) posts::iterator) {
+                for (String url : post.getMedia()) {
+                    String name = url.replace(MEDIA_URL_PREFIX, "");
+                    Query stillOld = Query.query(Criteria.where("_id").is(post.getId()).and("media").is(url));
+                    if (importFile(mediaDir, name, blob -> mongoTemplate.updateFirst(stillOld,
+                            Update.update("media.$", MEDIA_URL_PREFIX + blob), PostManagementModel.class).getModifiedCount() > 0)) {
+                        moved++;
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    // For documents that keep the bare file name in a single field
+    <T> long importField(Class<T> type, String field, Function<T, String> idOf, Function<T, String> nameOf, Path dir) {
+        Query withFile = Query.query(Criteria.where(field).exists(true).nin(null, ""));
+        withFile.fields().include(field);
+
+        long moved = 0;
+        try (var documents = mongoTemplate.stream(withFile, type)) {
+            for (T document : (Iterable<T>) documents::iterator) {
+                String name = nameOf.apply(document);
+                Query stillOld = Query.query(Criteria.where("_id").is(idOf.apply(document)).and(field).is(name));
+                if (importFile(dir, name, blob -> mongoTemplate.updateFirst(stillOld,
+                        Update.update(field, blob), type).getModifiedCount() > 0)) {
+                    moved++;
+                }
+            }
+        }
+        return moved;
+    }
+
+    // Stores the file and holds a reference for the document; repoint says whether the document took it
+    private boolean importFile(Path dir, String name, Predicate<String> repoint) {
+        if (name == null || name.isBlank() || mediaStore.isBlob(name)) {
+            return false;
+        }
+        // Names come from the database; never follow one out of its upload directory
+        Path base = dir.toAbsolutePath().normalize();
+        Path file = base.resolve(name).normalize();
+        if (!file.startsWith(base) || file.equals(base) || !Files.isRegularFile(file)) {
+            return false;
+        }
+        try {
+            String blob;
+            try (InputStream in = Files.newInputStream(file)) {
+                blob = mediaStore.store(in, name);
+            }
+            mediaStore.acquire(blob);
+            if (!repoint.test(blob)) {
+                mediaStore.release(blob);
+                return false;
+            }
+            Files.deleteIfExists(file);
+            imageVariants.delete(file.getFileName().toString());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to move " + file + " into the media store: " + e.getMessage());
+            return false;
+        }
+    }
+}
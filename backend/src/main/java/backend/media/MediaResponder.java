@@ -0,0 +1,237 @@
+package backend.media;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes an uploaded file to the response, for every endpoint that serves media.
+ *
+ * Files never change under a given URL (names are content hashes or unique upload names), so
+ * responses carry a strong ETag of the content and an immutable Cache-Control, and conditional
+ * requests get 304. A single byte range is answered with 206, which is what video seeking uses;
+ * multi-range requests get the whole file. The one exception to immutable caching is a ?w= URL
+ * answered with the original because its variant is not ready yet: that answer is revalidated,
+ * so the variant replaces it once made. The body goes out through Tomcat's sendfile where the
+ * connector supports it, so the bytes never pass through the JVM, and through
+ * FileChannel.transferTo otherwise.
+ */
+@Component
+public class MediaResponder {
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final MediaStore mediaStore;
+    private final ImageVariants imageVariants;
+    private final String cacheControl;
+    private final String pendingCacheControl;
+    // <path>:<size>:<modified> -> content hash, for files whose name is not already their hash
+    private final Cache<String, String> hashes;
+
+    public MediaResponder(MediaStore mediaStore,
+                          ImageVariants imageVariants,
+                          @Value("${media.cache-control:public, max-age=31536000, immutable}") String cacheControl,
+                          @Value("${media.pending-cache-control:no-cache}") String pendingCacheControl,
+                          @Value("${media.etag-cache-size:10000}") long etagCacheSize) {
+        this.mediaStore = mediaStore;
+        this.imageVariants = imageVariants;
+        this.cacheControl = cacheControl;
+        this.pendingCacheControl = pendingCacheControl;
+        this.hashes = Caffeine.newBuilder().maximumSize(etagCacheSize).build();
+    }
+
+    /**
+     * Serves an upload by the name stored on its document, at width w if given (see ImageVariants).
+     * Blobs kept on this node are served from disk. Blobs in a remote blob store are served from a
+     * variant made here when one applies, and otherwise redirect to a short-lived download URL so
+     * the bytes do not pass through us. Other names are uploads from before the media store, which
+     * are still in legacyDir.
+     */
+    public void serveUpload(String kind, String name, Path legacyDir, Integer w,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (mediaStore.isBlob(name)) {
+            Optional<Path> local = mediaStore.find(name);
+            if (local.isPresent()) {
+                serveVariant(kind, local.get(), w, request, response);
+                return;
+            }
+            Optional<Path> variant = imageVariants.variant(kind, name, () -> mediaStore.open(name), w);
+            if (variant.isPresent()) {
+                serve(variant.get(), request, response);
+                return;
+            }
+            Optional<URI> url = mediaStore.downloadUrl(name);
+            if (url.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            // The URL expires, so the redirect itself must not be cached
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.LOCATION, url.get().toString());
+            return;
+        }
+        Path base = legacyDir.toAbsolutePath().normalize();
+        Path file = base.resolve(name).normalize();
+        if (!file.startsWith(base) || file.equals(base)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        serveVariant(kind, file, w, request, response);
+    }
+
+    public void serve(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(file, cacheControl, request, response);
+    }
+
+    private void serveVariant(String kind, Path original, Integer w,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = imageVariants.resolve(kind, original, w);
+        boolean settled = !file.equals(original) || imageVariants.isSettled(kind, original.getFileName().toString(), w);
+        serve(file, settled ? cacheControl : pendingCacheControl, request, response);
+    }
+
+    private void serve(Path file, String cacheControl, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = Files.size(file);
+        String etag = "\"" + contentHash(file, length) + "\"";
+        String fileName = file.getFileName().toString();
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range with another validator means the client's copy is stale: send it everything
+        Matcher matcher = range != null && (ifRange == null || ifRange.equals(etag)) ? SINGLE_RANGE.matcher(range.trim()) : null;
+        if (matcher != null && matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            if (matcher.group(1).isEmpty()) {
+                start = Math.max(0, length - parseLong(matcher.group(2))); // bytes=-N: the last N bytes
+            } else {
+                start = parseLong(matcher.group(1));
+                end = matcher.group(2).isEmpty() ? length - 1 : Math.min(parseLong(matcher.group(2)), length - 1);
+            }
+            if (start >= length || start > end) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file once the request returns; its end offset is exclusive
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end + 1 - position, out);
+                if (sent <= 0) {
+                    break; // The file got shorter while we were sending it
+                }
+                position += sent;
+            }
+        }
+    }
+
+    // Blobs are named after their hash already; anything else (old uploads, variants) is hashed once and remembered
+    private String contentHash(Path file, long length) throws IOException {
+        String name = file.getFileName().toString();
+        if (mediaStore.find(name).map(file::equals).orElse(false)) {
+            return name.substring(0, name.indexOf('.'));
+        }
+        String key = file.toAbsolutePath() + ":" + length + ":" + Files.getLastModifiedTime(file).toMillis();
+        try {
+            return hashes.get(key, k -> hash(file));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String hash(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // If-None-Match uses the weak comparison, so W/ prefixes are ignored
+    private static boolean matchesAny(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        return Arrays.stream(header.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+    }
+
+    // Digits only, by the pattern; anything too long to be an offset is treated as the largest one
+    private static long parseLong(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
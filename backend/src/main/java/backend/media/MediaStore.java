@@ -0,0 +1,290 @@
+package backend.media;
+
+import backend.exception.InvalidMediaException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage for uploaded media, shared by posts, plans, achievements and profiles.
+ *
+ * An upload is hashed while it is copied to a temp file, then handed to the BlobStore as
+ * <sha-256>.<extension>, so identical uploads end up as one blob. Documents that point at a blob take a reference with
+ * acquire and give it back with release; blobs left without references for media.gc.grace are
+ * deleted by the collector. That grace period also covers the time between an upload and the
+ * save of the document that uses it. Uploads that must be validated first go through stage, and
+ * only become blobs on commit.
+ *
+ * Files from before the store keep their old names and directories. acquire and release ignore
+ * them, and isBlob tells callers which kind of name they hold.
+ */
+@Service
+public class MediaStore {
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}\\.[a-z0-9]{1,5}");
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,5}");
+    private static final String TEMP_PREFIX = "upload-";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MongoTemplate mongoTemplate;
+    private final ImageVariants imageVariants;
+    private final BlobStore blobStore;
+    private final Path dir; // Staging area for uploads; also where LocalBlobStore keeps blobs
+    private final Duration grace;
+
+    public MediaStore(MongoTemplate mongoTemplate,
+                      ImageVariants imageVariants,
+                      BlobStore blobStore,
+                      @Value("${media.store.dir:uploads/blobs}") String dir,
+                      @Value("${media.gc.grace:PT24H}") Duration grace) {
+        this.mongoTemplate = mongoTemplate;
+        this.imageVariants = imageVariants;
+        this.blobStore = blobStore;
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.grace = grace;
+        try {
+            Files.createDirectories(this.dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create media staging directory " + this.dir, e);
+        }
+    }
+
+    public String store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename());
+        }
+    }
+
+    // Returns the blob name. The blob starts without references, see acquire
+    public String store(InputStream in, String originalFilename) throws IOException {
+        String extension = Optional.ofNullable(StringUtils.getFilenameExtension(originalFilename))
+                .map(ext -> ext.toLowerCase(Locale.ROOT))
+                .filter(ext -> EXTENSION.matcher(ext).matches())
+                .orElse("bin");
+
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(dir, TEMP_PREFIX, ".tmp");
+        try {
+            long size;
+            try (DigestInputStream hashing = new DigestInputStream(in, digest)) {
+                size = Files.copy(hashing, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String name = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+
+            // Record first, file second: the collector checks for a record again after taking a file away
+            Instant now = Instant.now();
+            mongoTemplate.upsert(byId(name), new Update()
+                    .set("updatedAt", now)
+                    .setOnInsert("refs", 0L)
+                    .setOnInsert("size", size)
+                    .setOnInsert("createdAt", now), MediaBlob.class);
+            blobStore.put(name, temp, contentType(name));
+            return name;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Copies an upload to a temp file, checking its format from the first bytes and its size as
+     * they arrive, so a bad upload fails without being read to the end. Nothing is visible until
+     * commit; discard drops the file.
+     */
+    public Staged stage(InputStream in, String label, Set<MediaFormat> allowed, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(dir, TEMP_PREFIX, ".tmp");
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            MediaFormat format = null;
+            long size = 0;
+            boolean eof = false;
+            while (!eof) {
+                eof = source.read(buffer) == -1;
+                if (format == null) {
+                    if (buffer.position() < MediaFormat.HEADER_BYTES && !eof) {
+                        continue;
+                    }
+                    format = MediaFormat.detect(buffer.duplicate().flip())
+                            .filter(allowed::contains)
+                            .orElseThrow(() -> new InvalidMediaException(label + " must be one of " + allowed));
+                }
+                size += buffer.position();
+                if (size > maxBytes) {
+                    throw new InvalidMediaException(label + " is larger than " + maxBytes + " bytes");
+                }
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return new Staged(HexFormat.of().formatHex(digest.digest()) + "." + format.getExtension(), temp, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    // Publishes a staged upload under its blob name, already referenced once by the document that was saved with it
+    public void commit(Staged staged) throws IOException {
+        Instant now = Instant.now();
+        mongoTemplate.upsert(byId(staged.name()), new Update()
+                .inc("refs", 1)
+                .set("updatedAt", now)
+                .setOnInsert("size", staged.size())
+                .setOnInsert("createdAt", now), MediaBlob.class);
+        try {
+            blobStore.put(staged.name(), staged.temp(), contentType(staged.name()));
+        } finally {
+            // A local put moved the file already; a remote one only read it
+            Files.deleteIfExists(staged.temp());
+        }
+    }
+
+    public void discard(Staged staged) {
+        try {
+            Files.deleteIfExists(staged.temp());
+        } catch (IOException e) {
+            // The collector removes stale temp files
+            System.err.println("Failed to delete staged upload " + staged.temp() + ": " + e.getMessage());
+        }
+    }
+
+    public boolean isBlob(String name) {
+        return name != null && BLOB_NAME.matcher(name).matches();
+    }
+
+    // The file of a blob, if name is one and the blob store keeps it on this node
+    public Optional<Path> find(String name) {
+        return isBlob(name) ? blobStore.localFile(name) : Optional.empty();
+    }
+
+    public InputStream open(String name) throws IOException {
+        if (!isBlob(name)) {
+            throw new NoSuchFileException(name);
+        }
+        return blobStore.open(name);
+    }
+
+    // Where clients can fetch the blob directly, if the blob store serves downloads itself
+    public Optional<URI> downloadUrl(String name) {
+        return isBlob(name) ? blobStore.downloadUrl(name) : Optional.empty();
+    }
+
+    public void acquire(String name) {
+        if (isBlob(name)) {
+            mongoTemplate.updateFirst(byId(name), new Update().inc("refs", 1).set("updatedAt", Instant.now()), MediaBlob.class);
+        }
+    }
+
+    public void release(String name) {
+        if (isBlob(name)) {
+            mongoTemplate.updateFirst(byId(name), new Update().inc("refs", -1).set("updatedAt", Instant.now()), MediaBlob.class);
+        }
+    }
+
+    // Several nodes may run this at once; removing the record is the claim, so each blob is collected once
+    @Scheduled(fixedDelayString = "${media.gc.interval:PT1H}")
+    public void collectGarbage() {
+        Instant cutoff = Instant.now().minus(grace);
+        Query unreferenced = Query.query(Criteria.where("refs").lte(0).and("updatedAt").lt(cutoff));
+        unreferenced.fields().include("_id");
+
+        long deleted = 0;
+        long bytes = 0;
+        for (MediaBlob blob : mongoTemplate.find(unreferenced, MediaBlob.class)) {
+            Query claim = Query.query(Criteria.where("_id").is(blob.getId()).and("refs").lte(0).and("updatedAt").lt(cutoff));
+            MediaBlob removed = mongoTemplate.findAndRemove(claim, MediaBlob.class);
+            if (removed != null && deleteFile(removed.getId())) {
+                deleted++;
+                bytes += removed.getSize();
+            }
+        }
+        deleteStaleTempFiles(cutoff);
+        if (deleted > 0) {
+            System.out.println("Media store collected " + deleted + " blobs (" + bytes + " bytes)");
+        }
+    }
+
+    // Keeps the file if the same content was uploaded again since the record was removed
+    private boolean deleteFile(String name) {
+        try {
+            if (!blobStore.delete(name, () -> mongoTemplate.exists(byId(name), MediaBlob.class))) {
+                return false;
+            }
+            imageVariants.delete(name);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to delete media blob " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Left behind by uploads that died mid-copy
+    private void deleteStaleTempFiles(Instant cutoff) {
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(dir, TEMP_PREFIX + "*.tmp")) {
+            for (Path temp : temps) {
+                if (Files.getLastModifiedTime(temp).toInstant().isBefore(cutoff)) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to clean media store temp files: " + e.getMessage());
+        }
+    }
+
+    // An upload copied to a temp file, waiting for commit or discard
+    public record Staged(String name, Path temp, long size) {
+    }
+
+    private static String contentType(String name) {
+        return MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private Query byId(String name) {
+        return Query.query(Criteria.where("_id").is(name));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package backend.media;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Blobs in an S3-compatible bucket, so every node sees the same media and the bytes can be
+ * downloaded straight from the bucket through presigned URLs.
+ *
+ * Talks to the S3 REST API directly with AWS Signature V4 over the JDK HTTP client; uploads
+ * stream from the staged file and downloads stream into the caller. Works against AWS and
+ * against a local stand-in such as MinIO:
+ *
+ *   media.blob-store=s3
+ *   media.s3.endpoint=http://localhost:9000
+ *   media.s3.bucket=flavora-media
+ *   media.s3.access-key=minioadmin
+ *   media.s3.secret-key=minioadmin
+ *
+ * The bucket has to exist already.
+ */
+@Component
+@ConditionalOnProperty(name = "media.blob-store", havingValue = "s3")
+public class S3BlobStore implements BlobStore {
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DATE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private final HttpClient http;
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final boolean pathStyle;
+    private final Duration presignTtl;
+    private final Duration timeout;
+    private final String cacheControl;
+
+    public S3BlobStore(@Value("${media.s3.endpoint}") String endpoint,
+                       @Value("${media.s3.region:us-east-1}") String region,
+                       @Value("${media.s3.bucket}") String bucket,
+                       @Value("${media.s3.access-key}") String accessKey,
+                       @Value("${media.s3.secret-key}") String secretKey,
+                       @Value("${media.s3.path-style:true}") boolean pathStyle,
+                       @Value("${media.s3.presign-ttl:PT15M}") Duration presignTtl,
+                       @Value("${media.s3.timeout:PT60S}") Duration timeout,
+                       @Value("${media.cache-control:public, max-age=31536000, immutable}") String cacheControl) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.pathStyle = pathStyle;
+        this.presignTtl = presignTtl;
+        this.timeout = timeout;
+        this.cacheControl = cacheControl;
+        this.http = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void put(String key, Path file, String contentType) throws IOException {
+        URI uri = objectUri(key);
+        HttpRequest request = signed(HttpRequest.newBuilder(uri)
+                .PUT(HttpRequest.BodyPublishers.ofFile(file))
+                .header("Content-Type", contentType)
+                .header("Cache-Control", cacheControl), "PUT", uri);
+        HttpResponse<Void> response = send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 PUT " + key + " failed with status " + response.statusCode());
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        URI uri = objectUri(key);
+        HttpResponse<InputStream> response = send(signed(HttpRequest.newBuilder(uri).GET(), "GET", uri),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() / 100 == 2) {
+            return response.body();
+        }
+        response.body().close();
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(key);
+        }
+        throw new IOException("S3 GET " + key + " failed with status " + response.statusCode());
+    }
+
+    // S3 has no rename to park the object under, so keep is asked right before the delete
+    @Override
+    public boolean delete(String key, BooleanSupplier keep) throws IOException {
+        if (keep.getAsBoolean()) {
+            return false;
+        }
+        URI uri = objectUri(key);
+        HttpResponse<Void> response = send(signed(HttpRequest.newBuilder(uri).DELETE(), "DELETE", uri),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2 && response.statusCode() != 404) {
+            throw new IOException("S3 DELETE " + key + " failed with status " + response.statusCode());
+        }
+        return response.statusCode() != 404;
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.empty();
+    }
+
+    // A presigned GET, valid for media.s3.presign-ttl
+    @Override
+    public Optional<URI> downloadUrl(String key) {
+        return Optional.of(presign(key, Instant.now()));
+    }
+
+    URI presign(String key, Instant now) {
+        URI uri = objectUri(key);
+        String scope = scope(now);
+
+        Map<String, String> params = new TreeMap<>();
+        params.put("X-Amz-Algorithm", ALGORITHM);
+        params.put("X-Amz-Credential", accessKey + "/" + scope);
+        params.put("X-Amz-Date", AMZ_DATE.format(now));
+        params.put("X-Amz-Expires", String.valueOf(presignTtl.toSeconds()));
+        params.put("X-Amz-SignedHeaders", "host");
+        String query = params.entrySet().stream()
+                .map(param -> encode(param.getKey()) + "=" + encode(param.getValue()))
+                .collect(Collectors.joining("&"));
+
+        String canonicalRequest = "GET\n" + uri.getRawPath() + "\n" + query + "\n"
+                + "host:" + hostHeader(uri) + "\n\n"
+                + "host\n"
+                + UNSIGNED_PAYLOAD;
+        return URI.create(uri + "?" + query + "&X-Amz-Signature=" + signature(now, scope, canonicalRequest));
+    }
+
+    private URI objectUri(String key) {
+        String path = Arrays.stream(key.split("/")).map(S3BlobStore::encode).collect(Collectors.joining("/"));
+        if (pathStyle) {
+            return URI.create(endpoint + "/" + encode(bucket) + "/" + path);
+        }
+        String port = endpoint.getPort() == -1 ? "" : ":" + endpoint.getPort();
+        return URI.create(endpoint.getScheme() + "://" + bucket + "." + endpoint.getHost() + port + "/" + path);
+    }
+
+    // Signs with the payload unsigned, so uploads can stream without hashing the file twice
+    private HttpRequest signed(HttpRequest.Builder builder, String method, URI uri) {
+        Instant now = Instant.now();
+        String amzDate = AMZ_DATE.format(now);
+        String scope = scope(now);
+        String signedHeaders = "host;x-amz-content-sha256;x-amz-date";
+        String canonicalRequest = method + "\n" + uri.getRawPath() + "\n\n"
+                + "host:" + hostHeader(uri) + "\n"
+                + "x-amz-content-sha256:" + UNSIGNED_PAYLOAD + "\n"
+                + "x-amz-date:" + amzDate + "\n\n"
+                + signedHeaders + "\n"
+                + UNSIGNED_PAYLOAD;
+        return builder
+                .timeout(timeout)
+                .header("x-amz-date", amzDate)
+                .header("x-amz-content-sha256", UNSIGNED_PAYLOAD)
+                .header("Authorization", ALGORITHM + " Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + signedHeaders
+                        + ", Signature=" + signature(now, scope, canonicalRequest))
+                .build();
+    }
+
+    private String scope(Instant now) {
+        return DATE_STAMP.format(now) + "/" + region + "/s3/aws4_request";
+    }
+
+    private String signature(Instant now, String scope, String canonicalRequest) {
+        try {
+            String stringToSign = ALGORITHM + "\n" + AMZ_DATE.format(now) + "\n" + scope + "\n"
+                    + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+            byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), DATE_STAMP.format(now));
+            key = hmac(key, region);
+            key = hmac(key, "s3");
+            key = hmac(key, "aws4_request");
+            return HexFormat.of().formatHex(hmac(key, stringToSign));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // What the JDK client sends as Host: the port only when it is not the scheme's default
+    private static String hostHeader(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1
+                || ("http".equals(uri.getScheme()) && port == 80)
+                || ("https".equals(uri.getScheme()) && port == 443);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    // RFC 3986 encoding as SigV4 expects it
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8)
+                .replace("+", "%20")
+                .replace("*", "%2A")
+                .replace("%7E", "~");
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return http.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted talking to S3");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package backend.pagination;
+
+import backend.exception.InvalidCursorException;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. The cursor is an opaque token that
+ * wraps the sort key of the last item returned, so the next page starts right
+ * after it no matter how many documents precede it.
+ */
+public class CursorPage<T> {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Builds a page from a query that fetched limit + 1 rows; the extra row only tells us there is more
+    public static <T> CursorPage<T> of(List<T> fetched, int limit, Function<T, String> keyOf) {
+        if (fetched.size() <= limit) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new CursorPage<>(items, encode(keyOf.apply(items.get(limit - 1))));
+    }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit < 1) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    public static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // For listings keyed on a Mongo ObjectId; anything else would silently compare as a string
+    public static String decodeObjectId(String cursor) {
+        String key = decode(cursor);
+        if (!ObjectId.isValid(key)) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        return key;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
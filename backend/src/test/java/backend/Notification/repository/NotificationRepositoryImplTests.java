@@ -0,0 +1,110 @@
+package backend.Notification.repository;
+
+import backend.Notification.model.GroupedNotification;
+import backend.Notification.model.NotificationModel;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationRepositoryImplTests {
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final MongoCollection<Document> collection = mock(MongoCollection.class);
+    private final NotificationRepositoryImpl repository = new NotificationRepositoryImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repository, "mongoTemplate", mongoTemplate);
+        when(mongoTemplate.getCollectionName(NotificationModel.class)).thenReturn("notifications");
+        when(mongoTemplate.getCollection("notifications")).thenReturn(collection);
+    }
+
+    @Test
+    void upsertGroupedOnlyMatchesGroupsThatDoNotCountTheActorYet() {
+        repository.upsertGrouped(List.of(like("alice", "like:bob:post-1")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UpdateOneModel<Document>>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(upserts.capture(), any(BulkWriteOptions.class));
+        UpdateOneModel<Document> upsert = upserts.getValue().get(0);
+        assertThat(upsert.getOptions().isUpsert()).isTrue();
+        assertThat((Document) upsert.getFilter()).isEqualTo(new Document("dedupeKey", "like:bob:post-1")
+                .append("actorIds", new Document("$ne", "alice")));
+    }
+
+    @Test
+    void upsertGroupedReturnsEveryGroupWhenNothingCollides() {
+        Set<String> changed = repository.upsertGrouped(List.of(
+                like("alice", "like:bob:post-1"),
+                like("carol", "like:bob:post-2")));
+
+        assertThat(changed).containsExactlyInAnyOrder("like:bob:post-1", "like:bob:post-2");
+    }
+
+    @Test
+    void upsertGroupedDropsEventsThatCollideOnTheDedupeKey() {
+        // The second event's actor is already counted in its group, so its upsert hit the unique index
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenThrow(bulkWriteFailure(new BulkWriteError(DUPLICATE_KEY, "E11000 duplicate key", new BsonDocument(), 1)));
+
+        Set<String> changed = repository.upsertGrouped(List.of(
+                like("alice", "like:bob:post-1"),
+                like("alice", "like:bob:post-2"),
+                like("carol", "like:bob:post-3")));
+
+        assertThat(changed).containsExactlyInAnyOrder("like:bob:post-1", "like:bob:post-3");
+    }
+
+    @Test
+    void upsertGroupedRethrowsOtherWriteErrors() {
+        MongoBulkWriteException failure = bulkWriteFailure(
+                new BulkWriteError(DUPLICATE_KEY, "E11000 duplicate key", new BsonDocument(), 0),
+                new BulkWriteError(121, "Document failed validation", new BsonDocument(), 1));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(failure);
+
+        assertThatThrownBy(() -> repository.upsertGrouped(List.of(
+                like("alice", "like:bob:post-1"),
+                like("carol", "like:bob:post-2"))))
+                .isSameAs(failure);
+    }
+
+    @Test
+    void upsertGroupedSkipsTheWriteWhenThereIsNothingToDo() {
+        assertThat(repository.upsertGrouped(List.of())).isEmpty();
+    }
+
+    private static GroupedNotification like(String actorId, String groupKey) {
+        return new GroupedNotification("bob", NotificationModel.TYPE_LIKE, groupKey.substring(groupKey.lastIndexOf(':') + 1),
+                actorId, actorId, " liked your Pasta post", Instant.now(), groupKey);
+    }
+
+    private static MongoBulkWriteException bulkWriteFailure(BulkWriteError... errors) {
+        return new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(errors), null,
+                new ServerAddress(), Set.of());
+    }
+}
@@ -0,0 +1,157 @@
+package backend.PostManagement.repository;
+
+import backend.PostManagement.model.PostManagementModel;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostManagementRepositoryImplTests {
+    private static final String POST_ID = "post-1";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final PostManagementRepositoryImpl repository = new PostManagementRepositoryImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repository, "mongoTemplate", mongoTemplate);
+    }
+
+    @Test
+    void likesThenUnlikes() {
+        FakePost post = new FakePost();
+        post.install(mongoTemplate);
+
+        PostManagementModel liked = repository.toggleLike(POST_ID, "alice");
+        assertThat(liked.getLikes()).containsEntry("alice", true);
+        assertThat(liked.getLikeCount()).isEqualTo(1);
+
+        PostManagementModel unliked = repository.toggleLike(POST_ID, "alice");
+        assertThat(unliked.getLikes()).doesNotContainKey("alice");
+        assertThat(unliked.getLikeCount()).isZero();
+    }
+
+    @Test
+    void retriesWhenAConcurrentToggleFlipsTheStateInBetween() {
+        PostManagementModel liked = new PostManagementModel();
+        // Like misses (already liked), unlike misses (someone unliked meanwhile), then the retried like lands
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(PostManagementModel.class)))
+                .thenReturn(null, null, liked);
+        when(mongoTemplate.exists(any(Query.class), eq(PostManagementModel.class))).thenReturn(true);
+
+        assertThat(repository.toggleLike(POST_ID, "alice")).isSameAs(liked);
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(PostManagementModel.class));
+    }
+
+    @Test
+    void returnsNullForAMissingPost() {
+        when(mongoTemplate.exists(any(Query.class), eq(PostManagementModel.class))).thenReturn(false);
+
+        assertThat(repository.toggleLike(POST_ID, "alice")).isNull();
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        when(mongoTemplate.exists(any(Query.class), eq(PostManagementModel.class))).thenReturn(true);
+
+        assertThatThrownBy(() -> repository.toggleLike(POST_ID, "alice"))
+                .isInstanceOf(IllegalStateException.class);
+        verify(mongoTemplate, times(6)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(PostManagementModel.class));
+    }
+
+    @Test
+    void likeCountMatchesLikesUnderConcurrentToggles() throws Exception {
+        FakePost post = new FakePost();
+        post.install(mongoTemplate);
+
+        int users = 8;
+        int togglesPerUser = 101;
+        ExecutorService pool = Executors.newFixedThreadPool(users);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int u = 0; u < users; u++) {
+                String userID = "user" + u;
+                runs.add(pool.submit(() -> {
+                    for (int i = 0; i < togglesPerUser; i++) {
+                        repository.toggleLike(POST_ID, userID);
+                    }
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // An odd number of toggles leaves every user liking the post
+        assertThat(post.likes).hasSize(users);
+        assertThat(post.likeCount).isEqualTo(users);
+    }
+
+    /**
+     * A single post document that applies the repository's conditional updates atomically, the
+     * way findAndModify does, so concurrent toggles interleave only between calls.
+     */
+    private static class FakePost {
+        final Map<String, Boolean> likes = new HashMap<>();
+        int likeCount;
+
+        void install(MongoTemplate mongoTemplate) {
+            when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                    any(FindAndModifyOptions.class), eq(PostManagementModel.class)))
+                    .thenAnswer(call -> apply(call.getArgument(0), call.getArgument(1)));
+            when(mongoTemplate.exists(any(Query.class), eq(PostManagementModel.class))).thenReturn(true);
+        }
+
+        synchronized PostManagementModel apply(Query query, Update update) {
+            for (Map.Entry<String, Object> condition : query.getQueryObject().entrySet()) {
+                if (!condition.getKey().startsWith("likes.")) {
+                    continue;
+                }
+                String userID = condition.getKey().substring("likes.".length());
+                boolean liked = likes.getOrDefault(userID, false);
+                boolean wantsUnliked = condition.getValue() instanceof Document ne && Boolean.TRUE.equals(ne.get("$ne"));
+                if (liked == wantsUnliked) {
+                    return null;
+                }
+                Document inc = (Document) update.getUpdateObject().get("$inc");
+                if (liked) {
+                    likes.remove(userID);
+                } else {
+                    likes.put(userID, true);
+                }
+                likeCount += ((Number) inc.get("likeCount")).intValue();
+            }
+            PostManagementModel post = new PostManagementModel();
+            post.setLikes(new HashMap<>(likes));
+            post.setLikeCount(likeCount);
+            return post;
+        }
+    }
+}
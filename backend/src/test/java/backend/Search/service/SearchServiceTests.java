@@ -0,0 +1,191 @@
+package backend.Search.service;
+
+import backend.Achievements.model.AchievementsModel;
+import backend.LearningPlan.model.LearningPlanModel;
+import backend.PostManagement.model.PostManagementModel;
+import backend.Search.model.SearchHit;
+import backend.Search.model.SearchPage;
+import backend.Search.service.SearchService.SearchCursor;
+import backend.exception.InvalidCursorException;
+import backend.pagination.CursorPage;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchServiceTests {
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final SearchService searchService = new SearchService(mongoTemplate, Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(PostManagementModel.class)).thenReturn("posts");
+        when(mongoTemplate.getCollectionName(LearningPlanModel.class)).thenReturn("learningPlans");
+        when(mongoTemplate.getCollectionName(AchievementsModel.class)).thenReturn("achievements");
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchService.shutdown();
+    }
+
+    @Test
+    void hitsAreOrderedByScoreThenKindThenId() {
+        List<SearchHit> hits = new ArrayList<>(List.of(
+                hit(SearchService.POSTS, "b", 1.0),
+                hit(SearchService.POSTS, "a", 1.0),
+                hit(SearchService.ACHIEVEMENTS, "z", 1.0),
+                hit(SearchService.LEARNING_PLANS, "c", 2.0),
+                hit(SearchService.LEARNING_PLANS, "d", 1.0)));
+
+        hits.sort(SearchCursor.HIT_ORDER);
+
+        assertThat(hits).extracting(hit -> hit.getType() + ":" + hit.getId()).containsExactly(
+                "learningPlan:c", "achievement:z", "learningPlan:d", "post:a", "post:b");
+    }
+
+    @Test
+    void criteriaContinuesEachKindRightAfterTheKey() {
+        String id = new ObjectId().toHexString();
+        SearchCursor cursor = new SearchCursor(1.5, SearchService.LEARNING_PLANS, id);
+
+        // Kinds after learningPlan sort after it on equal scores, so an equal score is still to come
+        assertThat(cursor.criteriaFor(SearchService.POSTS).getCriteriaObject())
+                .isEqualTo(new Document("score", new Document("$lte", 1.5)));
+        // Kinds before it were already shown on equal scores
+        assertThat(cursor.criteriaFor(SearchService.ACHIEVEMENTS).getCriteriaObject())
+                .isEqualTo(new Document("score", new Document("$lt", 1.5)));
+        // The same kind continues after the id on an equal score
+        assertThat(cursor.criteriaFor(SearchService.LEARNING_PLANS).getCriteriaObject())
+                .isEqualTo(new Document("$or", Arrays.asList(
+                        new Document("score", new Document("$lt", 1.5)),
+                        new Document("score", 1.5).append("_id", new Document("$gt", new ObjectId(id))))));
+    }
+
+    @Test
+    void sharedCursorAppliesToEveryKind() {
+        SearchCursor key = new SearchCursor(1.5, SearchService.POSTS, "abc");
+        List<String> kinds = List.of(SearchService.ACHIEVEMENTS, SearchService.LEARNING_PLANS, SearchService.POSTS);
+
+        String cursor = SearchCursor.encode(Map.of(
+                SearchService.ACHIEVEMENTS, key, SearchService.LEARNING_PLANS, key, SearchService.POSTS, key), kinds);
+
+        assertThat(CursorPage.decode(cursor)).isEqualTo("1.5:post:abc");
+        assertThat(SearchCursor.decode(cursor)).containsOnlyKeys(kinds).allSatisfy((kind, position) ->
+                assertThat(position).isEqualTo(key));
+    }
+
+    @Test
+    void perKindCursorLeavesUnknownPositionsAtTheTop() {
+        SearchCursor key = new SearchCursor(1.5, SearchService.POSTS, "abc");
+        List<String> kinds = List.of(SearchService.ACHIEVEMENTS, SearchService.POSTS);
+
+        Map<String, SearchCursor> decoded = SearchCursor.decode(SearchCursor.encode(Map.of(SearchService.ACHIEVEMENTS, key), kinds));
+
+        assertThat(decoded).containsOnlyKeys(SearchService.ACHIEVEMENTS).containsEntry(SearchService.ACHIEVEMENTS, key);
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        for (String key : List.of("1.5:post", "x:post:abc", "1.5:user:abc", "user=1.5:post:abc", "post")) {
+            assertThatThrownBy(() -> SearchCursor.decode(CursorPage.encode(key)))
+                    .as(key)
+                    .isInstanceOf(InvalidCursorException.class);
+        }
+    }
+
+    @Test
+    void pagesFollowTheMergedOrderAcrossKinds() {
+        answer("posts", doc("p1", 3.0), doc("p2", 1.0));
+        answer("learningPlans", doc("l1", 2.0));
+        answer("achievements", doc("a1", 1.0));
+
+        SearchPage page = searchService.search("pasta", null, null, 2);
+
+        assertThat(page.getItems()).extracting(SearchHit::getId).containsExactly("p1", "l1");
+        assertThat(page.isPartial()).isFalse();
+        assertThat(CursorPage.decode(page.getNextCursor())).isEqualTo("2.0:learningPlan:l1");
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        answer("posts", doc("p1", 3.0));
+        answer("learningPlans");
+        answer("achievements");
+
+        SearchPage page = searchService.search("pasta", null, null, 2);
+
+        assertThat(page.getItems()).extracting(SearchHit::getId).containsExactly("p1");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void kindThatMissesTheBudgetResumesFromWhereItWas() {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("posts"), eq(Document.class)))
+                .thenThrow(new QueryTimeoutException("operation exceeded time limit"));
+        answer("learningPlans", doc("l1", 2.0));
+        answer("achievements", doc("a1", 1.0));
+
+        SearchPage page = searchService.search("pasta", null, null, 5);
+
+        assertThat(page.getItems()).extracting(SearchHit::getId).containsExactly("l1", "a1");
+        assertThat(page.isPartial()).isTrue();
+        // Even though the other kinds are done, posts still have to be searched from the top
+        Map<String, SearchCursor> next = SearchCursor.decode(page.getNextCursor());
+        SearchCursor last = new SearchCursor(1.0, SearchService.ACHIEVEMENTS, "a1");
+        assertThat(next).doesNotContainKey(SearchService.POSTS)
+                .containsEntry(SearchService.ACHIEVEMENTS, last)
+                .containsEntry(SearchService.LEARNING_PLANS, last);
+    }
+
+    @Test
+    void kindThatMissesTheBudgetKeepsItsIncomingPosition() {
+        SearchCursor postsAt = new SearchCursor(4.0, SearchService.POSTS, "p0");
+        SearchCursor othersAt = new SearchCursor(2.5, SearchService.POSTS, "p9");
+        String cursor = SearchCursor.encode(Map.of(
+                SearchService.POSTS, postsAt,
+                SearchService.LEARNING_PLANS, othersAt,
+                SearchService.ACHIEVEMENTS, othersAt), List.of(SearchService.ACHIEVEMENTS, SearchService.LEARNING_PLANS, SearchService.POSTS));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("posts"), eq(Document.class)))
+                .thenThrow(new QueryTimeoutException("operation exceeded time limit"));
+        answer("learningPlans", doc("l1", 2.0));
+        answer("achievements");
+
+        SearchPage page = searchService.search("pasta", null, cursor, 5);
+
+        Map<String, SearchCursor> next = SearchCursor.decode(page.getNextCursor());
+        assertThat(next).containsEntry(SearchService.POSTS, postsAt)
+                .containsEntry(SearchService.LEARNING_PLANS, new SearchCursor(2.0, SearchService.LEARNING_PLANS, "l1"));
+    }
+
+    private void answer(String collection, Document... docs) {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(collection), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(docs), new Document()));
+    }
+
+    private static Document doc(String id, double score) {
+        return new Document("_id", id).append("title", id).append("score", score);
+    }
+
+    private static SearchHit hit(String type, String id, double score) {
+        return new SearchHit(type, id, id, null, null, score);
+    }
+}
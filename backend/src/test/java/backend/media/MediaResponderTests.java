@@ -0,0 +1,205 @@
+package backend.media;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MediaResponderTests {
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String CONTENT = "0123456789";
+
+    @TempDir
+    Path dir;
+
+    private final MediaStore mediaStore = mock(MediaStore.class);
+    private final ImageVariants imageVariants = mock(ImageVariants.class);
+    private final MediaResponder responder = new MediaResponder(mediaStore, imageVariants, IMMUTABLE, "no-cache", 100);
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.writeString(dir.resolve("photo.jpg"), CONTENT, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void servesTheWholeFileWithValidators() throws IOException {
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("GET", "/media/photo.jpg"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"").endsWith("\"");
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo(IMMUTABLE);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getContentType()).isEqualTo("image/jpeg");
+    }
+
+    @Test
+    void matchingIfNoneMatchGets304() throws IOException {
+        String etag = serve(new MockHttpServletRequest("GET", "/media/photo.jpg")).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/photo.jpg");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag);
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void otherIfNoneMatchGetsTheFile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/photo.jpg");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void singleRangeGets206() throws IOException {
+        MockHttpServletResponse response = serve(ranged("bytes=2-5"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void openEndedAndSuffixRanges() throws IOException {
+        MockHttpServletResponse from = serve(ranged("bytes=7-"));
+        assertThat(from.getStatus()).isEqualTo(206);
+        assertThat(from.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+        assertThat(from.getContentAsString()).isEqualTo("789");
+
+        MockHttpServletResponse suffix = serve(ranged("bytes=-3"));
+        assertThat(suffix.getStatus()).isEqualTo(206);
+        assertThat(suffix.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+        assertThat(suffix.getContentAsString()).isEqualTo("789");
+    }
+
+    @Test
+    void rangeEndPastTheFileIsClamped() throws IOException {
+        MockHttpServletResponse response = serve(ranged("bytes=8-100"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 8-9/10");
+        assertThat(response.getContentAsString()).isEqualTo("89");
+    }
+
+    @Test
+    void rangeStartingPastTheFileGets416() throws IOException {
+        MockHttpServletResponse response = serve(ranged("bytes=10-"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void backwardsRangeGets416() throws IOException {
+        assertThat(serve(ranged("bytes=5-2")).getStatus()).isEqualTo(416);
+    }
+
+    @Test
+    void multipleRangesGetTheWholeFile() throws IOException {
+        MockHttpServletResponse response = serve(ranged("bytes=0-1,4-5"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void staleIfRangeGetsTheWholeFile() throws IOException {
+        MockHttpServletRequest request = ranged("bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void currentIfRangeGetsTheRange() throws IOException {
+        String etag = serve(new MockHttpServletRequest("GET", "/media/photo.jpg")).getHeader(HttpHeaders.ETAG);
+        MockHttpServletRequest request = ranged("bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, etag);
+
+        assertThat(serve(request).getStatus()).isEqualTo(206);
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws IOException {
+        MockHttpServletResponse response = serve(new MockHttpServletRequest("HEAD", "/media/photo.jpg"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void missingFileGets404() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responder.serve(dir.resolve("missing.jpg"), new MockHttpServletRequest("GET", "/media/missing.jpg"), response);
+
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void originalServedForAPendingVariantIsRevalidated() throws IOException {
+        when(mediaStore.isBlob(anyString())).thenReturn(false);
+        when(imageVariants.resolve(eq(ImageVariants.MEDIA), any(Path.class), eq(320))).thenReturn(file);
+        when(imageVariants.isSettled(ImageVariants.MEDIA, "photo.jpg", 320)).thenReturn(false);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responder.serveUpload(ImageVariants.MEDIA, "photo.jpg", dir, 320,
+                new MockHttpServletRequest("GET", "/media/photo.jpg"), response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+    }
+
+    @Test
+    void originalServedAsTheSettledAnswerIsImmutable() throws IOException {
+        when(mediaStore.isBlob(anyString())).thenReturn(false);
+        when(imageVariants.resolve(eq(ImageVariants.MEDIA), any(Path.class), eq(320))).thenReturn(file);
+        when(imageVariants.isSettled(ImageVariants.MEDIA, "photo.jpg", 320)).thenReturn(true);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responder.serveUpload(ImageVariants.MEDIA, "photo.jpg", dir, 320,
+                new MockHttpServletRequest("GET", "/media/photo.jpg"), response);
+
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo(IMMUTABLE);
+    }
+
+    private MockHttpServletRequest ranged(String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/media/photo.jpg");
+        request.addHeader(HttpHeaders.RANGE, range);
+        return request;
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responder.serve(file, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,65 @@
+package backend.pagination;
+
+import backend.exception.InvalidCursorException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorPageTests {
+
+    @Test
+    void encodeAndDecodeRoundTrip() {
+        String key = "0.75:post:abc/def+=";
+        String cursor = CursorPage.encode(key);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(CursorPage.decode(cursor)).isEqualTo(key);
+    }
+
+    @Test
+    void decodeRejectsMalformedCursors() {
+        assertThatThrownBy(() -> CursorPage.decode("not base64!"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void decodeObjectIdAcceptsObjectIds() {
+        String id = new ObjectId().toHexString();
+
+        assertThat(CursorPage.decodeObjectId(CursorPage.encode(id))).isEqualTo(id);
+    }
+
+    @Test
+    void decodeObjectIdRejectsOtherKeys() {
+        assertThatThrownBy(() -> CursorPage.decodeObjectId(CursorPage.encode("not-an-object-id")))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<String> page = CursorPage.of(List.of("a", "b"), 2, item -> item);
+
+        assertThat(page.getItems()).containsExactly("a", "b");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void extraRowIsDroppedAndCursorPointsAtTheLastItem() {
+        CursorPage<String> page = CursorPage.of(List.of("a", "b", "c"), 2, item -> item);
+
+        assertThat(page.getItems()).containsExactly("a", "b");
+        assertThat(CursorPage.decode(page.getNextCursor())).isEqualTo("b");
+    }
+
+    @Test
+    void clampLimitFallsBackToTheDefaultAndCapsAtTheMaximum() {
+        assertThat(CursorPage.clampLimit(null)).isEqualTo(CursorPage.DEFAULT_LIMIT);
+        assertThat(CursorPage.clampLimit(0)).isEqualTo(CursorPage.DEFAULT_LIMIT);
+        assertThat(CursorPage.clampLimit(5)).isEqualTo(5);
+        assertThat(CursorPage.clampLimit(CursorPage.MAX_LIMIT + 1)).isEqualTo(CursorPage.MAX_LIMIT);
+    }
+}
@@ -25,9 +25,8 @@ function NavBar() {
     useEffect(() => {
         const fetchNotifications = async () => {
             try {
-                const response = await axios.get(`http://localhost:8080/notifications/${userId}`);
-                const unreadNotifications = response.data.some(notification => !notification.read);
-                setAllRead(!unreadNotifications);
+                const response = await axios.get(`http://localhost:8080/notifications/${userId}/unreadCount`);
+                setAllRead(response.data.unreadCount === 0);
             } catch (error) {
                 console.error('Error fetching notifications:', error);
             }
@@ -37,6 +36,16 @@ function NavBar() {
         }
     }, [userId]);
 
+    useEffect(() => {
+        if (!userId) {
+            return undefined;
+        }
+        // New notifications are pushed by the server; EventSource reconnects and resumes on its own
+        const source = new EventSource(`http://localhost:8080/notifications/${userId}/stream`);
+        source.addEventListener('notification', () => setAllRead(false));
+        return () => source.close();
+    }, [userId]);
+
     useEffect(() => {
         const storedUserType = localStorage.getItem('userType');
         setUserType(storedUserType);
@@ -46,7 +55,7 @@ function NavBar() {
         } else if (userId) {
             fetchUserDetails(userId).then((data) => {
                 if (data && data.profilePicturePath) {
-                    setUserProfileImage(`http://localhost:8080/uploads/profile/${data.profilePicturePath}`);
+                    setUserProfileImage(`http://localhost:8080/uploads/profile/${data.profilePicturePath}?w=320`);
                 }
             });
         }
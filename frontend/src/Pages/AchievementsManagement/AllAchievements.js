@@ -137,7 +137,7 @@ function AllAchievements() {
                     <div className="media-gallery single">
                       <div className="media-item" onClick={() => openModal(`http://localhost:8080/achievements/images/${achievement.imageUrl}`)}>
                         <img 
-                          src={`http://localhost:8080/achievements/images/${achievement.imageUrl}`} 
+                          src={`http://localhost:8080/achievements/images/${achievement.imageUrl}?w=640`} 
                           alt="Achievement" 
                         />
                       </div>
@@ -129,7 +129,7 @@ function MyAchievements() {
                     <div className="media-gallery single">
                       <div className="media-item" onClick={() => openModal(`http://localhost:8080/achievements/images/${achievement.imageUrl}`)}>
                         <img 
-                          src={`http://localhost:8080/achievements/images/${achievement.imageUrl}`} 
+                          src={`http://localhost:8080/achievements/images/${achievement.imageUrl}?w=640`} 
                           alt="Achievement" 
                         />
                       </div>
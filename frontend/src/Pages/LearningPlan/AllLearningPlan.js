@@ -12,14 +12,20 @@ function AllLearningPlan() {
   const [posts, setPosts] = useState([]);
   const [filteredPosts, setFilteredPosts] = useState([]);
   const [searchOwnerName, setSearchOwnerName] = useState('');
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const userId = localStorage.getItem('userID');
 
+  const matchesOwner = (post, ownerName) =>
+    (post.postOwnerName || '').toLowerCase().includes(ownerName.toLowerCase());
+
   useEffect(() => {
     const fetchPosts = async () => {
       try {
         const response = await axios.get('http://localhost:8080/learningPlan');
-        setPosts(response.data);
-        setFilteredPosts(response.data); // Initially show all posts
+        setPosts(response.data.items);
+        setFilteredPosts(response.data.items); // Initially show all posts
+        setNextCursor(response.data.nextCursor);
       } catch (error) {
         console.error('Error fetching posts:', error);
       }
@@ -28,6 +34,29 @@ function AllLearningPlan() {
     fetchPosts();
   }, []); // Ensure this runs only once on component mount
 
+  const handleLoadMore = async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+    setLoadingMore(true);
+    try {
+      const response = await axios.get('http://localhost:8080/learningPlan', {
+        params: { cursor: nextCursor },
+      });
+      const morePosts = response.data.items;
+      setPosts((prevPosts) => [...prevPosts, ...morePosts]);
+      setFilteredPosts((prevFilteredPosts) => [
+        ...prevFilteredPosts,
+        ...morePosts.filter((post) => matchesOwner(post, searchOwnerName)),
+      ]);
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error('Error fetching more posts:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const getEmbedURL = (url) => {
     try {
       if (url.includes('youtube.com/watch')) {
@@ -66,11 +95,7 @@ function AllLearningPlan() {
   const handleSearch = (e) => {
     const value = e.target.value;
     setSearchOwnerName(value);
-    setFilteredPosts(
-      posts.filter((post) =>
-        post.postOwnerName.toLowerCase().includes(value.toLowerCase())
-      )
-    );
+    setFilteredPosts(posts.filter((post) => matchesOwner(post, value)));
   };
 
   const renderPostByTemplate = (post) => {
@@ -283,6 +308,13 @@ function AllLearningPlan() {
             ))
           )}
         </div>
+        {nextCursor && (
+          <div className="load-more">
+            <button className="primary-button" onClick={handleLoadMore} disabled={loadingMore}>
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
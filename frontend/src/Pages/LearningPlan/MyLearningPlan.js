@@ -11,15 +11,18 @@ function MyLearningPlan() {
   const [posts, setPosts] = useState([]);
   const [filteredPosts, setFilteredPosts] = useState([]);
   const [searchOwnerName, setSearchOwnerName] = useState('');
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const userId = localStorage.getItem('userID');
 
   useEffect(() => {
     const fetchPosts = async () => {
       try {
-        const response = await axios.get('http://localhost:8080/learningPlan');
-        const userPosts = response.data.filter(post => post.postOwnerID === userId); // Filter posts by userID
+        const response = await axios.get(`http://localhost:8080/learningPlan/user/${userId}`);
+        const userPosts = response.data.items;
         setPosts(userPosts);
         setFilteredPosts(userPosts); // Initially show filtered posts
+        setNextCursor(response.data.nextCursor);
       } catch (error) {
         console.error('Error fetching posts:', error);
       }
@@ -28,6 +31,26 @@ function MyLearningPlan() {
     fetchPosts();
   }, []); // Ensure this runs only once on component mount
 
+  const handleLoadMore = async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+    setLoadingMore(true);
+    try {
+      const response = await axios.get(`http://localhost:8080/learningPlan/user/${userId}`, {
+        params: { cursor: nextCursor },
+      });
+      const userPosts = response.data.items;
+      setPosts((prevPosts) => [...prevPosts, ...userPosts]);
+      setFilteredPosts((prevFilteredPosts) => [...prevFilteredPosts, ...userPosts]);
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error('Error fetching more posts:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const getEmbedURL = (url) => {
     try {
       if (url.includes('youtube.com/watch')) {
@@ -254,6 +277,13 @@ function MyLearningPlan() {
               ))
             )}
           </div>
+          {nextCursor && (
+            <div className='load_more_box'>
+              <button className='not_found_btn' onClick={handleLoadMore} disabled={loadingMore}>
+                {loadingMore ? 'Loading...' : 'Load more'}
+              </button>
+            </div>
+          )}
         </div>
       </div>
     </div>
@@ -42,6 +42,15 @@ function NotificationsPage() {
     }
   };
 
+  const handleMarkAllRead = async () => {
+    try {
+      await axios.put(`http://localhost:8080/notifications/${userId}/markAllRead`);
+      setNotifications(notifications.map((n) => ({ ...n, read: true })));
+    } catch (error) {
+      console.error('Error marking all notifications as read:', error);
+    }
+  };
+
   const handleDelete = async (id) => {
     try {
       await axios.delete(`http://localhost:8080/notifications/${id}`);
@@ -63,6 +72,11 @@ function NotificationsPage() {
           <div className="notification-count">
             {notifications.length} {notifications.length === 1 ? 'notification' : 'notifications'}
           </div>
+          {notifications.some((n) => !n.read) && (
+            <button className="action-button read-button" onClick={handleMarkAllRead} title="Mark all as read">
+              <MdOutlineMarkChatRead />
+            </button>
+          )}
         </div>
         
         {loading ? (
@@ -16,58 +16,125 @@ import { FaCommentAlt } from "react-icons/fa";
 import './AllPostModern.css'; // We'll create this CSS file
 Modal.setAppElement('#root');
 
+// Where each view lists its posts from; all of them are cursor-paginated
+const VIEW_URLS = {
+  all: () => 'http://localhost:8080/posts',
+  mine: (userID) => `http://localhost:8080/posts/user/${userID}`,
+  following: (userID) => `http://localhost:8080/feed/${userID}`,
+};
+
+// One page of posts for the current view. Search runs on the server and its hits are shown as post cards
+const fetchPostPage = async ({ view, searchQuery, cursor, userID }) => {
+  if (searchQuery) {
+    const search = await axios.get('http://localhost:8080/search', {
+      params: { q: searchQuery, type: 'post', cursor },
+    });
+    const ids = search.data.items.map((hit) => hit.id);
+    if (ids.length === 0) {
+      return { items: [], nextCursor: search.data.nextCursor };
+    }
+    const posts = await axios.get('http://localhost:8080/posts', {
+      params: { ids, viewerId: userID || undefined },
+      paramsSerializer: { indexes: null },
+    });
+    return { items: posts.data.items, nextCursor: search.data.nextCursor };
+  }
+  const url = VIEW_URLS[view](userID);
+  const response = await axios.get(url, { params: { cursor, viewerId: userID || undefined } });
+  return response.data;
+};
+
 function AllPost() {
   const [posts, setPosts] = useState([]);
-  const [filteredPosts, setFilteredPosts] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [postOwners, setPostOwners] = useState({});
-  const [showMyPosts, setShowMyPosts] = useState(false);
+  const [view, setView] = useState('all');
   const [isModalOpen, setIsModalOpen] = useState(false);
   const [selectedMedia, setSelectedMedia] = useState(null);
   const [followedUsers, setFollowedUsers] = useState([]);
   const [newComment, setNewComment] = useState({});
   const [editingComment, setEditingComment] = useState({});
+  const [openComments, setOpenComments] = useState({});
+  const [commentCursors, setCommentCursors] = useState({});
   const [searchQuery, setSearchQuery] = useState('');
+  const [submittedQuery, setSubmittedQuery] = useState('');
   const navigate = useNavigate();
   const loggedInUserID = localStorage.getItem('userID');
 
+  const fetchOwners = async (pagePosts) => {
+    const userIDs = [...new Set(pagePosts.map((post) => post.userID))];
+    const ownerPromises = userIDs.map((userID) =>
+      axios.get(`http://localhost:8080/user/${userID}`)
+        .then((res) => ({
+          userID,
+          fullName: res.data.fullname,
+        }))
+        .catch((error) => {
+          if (error.response && error.response.status === 404) {
+            console.warn(`User with ID ${userID} not found. Removing their posts.`);
+            setPosts((prevPosts) => prevPosts.filter((post) => post.userID !== userID));
+          } else {
+            console.error(`Error fetching user details for userID ${userID}:`, error);
+          }
+          return { userID, fullName: 'Anonymous' };
+        })
+    );
+    const owners = await Promise.all(ownerPromises);
+    setPostOwners((prevOwners) =>
+      owners.reduce((acc, owner) => {
+        acc[owner.userID] = owner.fullName;
+        return acc;
+      }, { ...prevOwners })
+    );
+  };
+
+  // Reloads from the first page whenever the view or the submitted search changes
   useEffect(() => {
+    let cancelled = false;
     const fetchPosts = async () => {
       try {
-        const response = await axios.get('http://localhost:8080/posts');
-        setPosts(response.data);
-        setFilteredPosts(response.data);
-
-        const userIDs = [...new Set(response.data.map((post) => post.userID))];
-        const ownerPromises = userIDs.map((userID) =>
-          axios.get(`http://localhost:8080/user/${userID}`)
-            .then((res) => ({
-              userID,
-              fullName: res.data.fullname,
-            }))
-            .catch((error) => {
-              if (error.response && error.response.status === 404) {
-                console.warn(`User with ID ${userID} not found. Removing their posts.`);
-                setPosts((prevPosts) => prevPosts.filter((post) => post.userID !== userID));
-                setFilteredPosts((prevFilteredPosts) => prevFilteredPosts.filter((post) => post.userID !== userID));
-              } else {
-                console.error(`Error fetching user details for userID ${userID}:`, error);
-              }
-              return { userID, fullName: 'Anonymous' };
-            })
-        );
-        const owners = await Promise.all(ownerPromises);
-        const ownerMap = owners.reduce((acc, owner) => {
-          acc[owner.userID] = owner.fullName;
-          return acc;
-        }, {});
-        setPostOwners(ownerMap);
+        const page = await fetchPostPage({ view, searchQuery: submittedQuery, userID: loggedInUserID });
+        const pagePosts = page.items;
+        if (cancelled) {
+          return;
+        }
+        setPosts(pagePosts);
+        setNextCursor(page.nextCursor);
+        fetchOwners(pagePosts);
       } catch (error) {
         console.error('Error fetching posts:', error);
       }
     };
 
     fetchPosts();
-  }, []);
+    return () => {
+      cancelled = true;
+    };
+  }, [view, submittedQuery]);
+
+  const handleLoadMore = async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+    setLoadingMore(true);
+    try {
+      const page = await fetchPostPage({
+        view,
+        searchQuery: submittedQuery,
+        cursor: nextCursor,
+        userID: loggedInUserID,
+      });
+      const pagePosts = page.items;
+      setPosts((prevPosts) => [...prevPosts, ...pagePosts]);
+      setNextCursor(page.nextCursor);
+      fetchOwners(pagePosts);
+    } catch (error) {
+      console.error('Error fetching more posts:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
 
   useEffect(() => {
     const fetchFollowedUsers = async () => {
@@ -95,7 +162,6 @@ function AllPost() {
       await axios.delete(`http://localhost:8080/posts/${postId}`);
       alert('Post deleted successfully!');
       setPosts(posts.filter((post) => post.id !== postId));
-      setFilteredPosts(filteredPosts.filter((post) => post.id !== postId));
     } catch (error) {
       console.error('Error deleting post:', error);
       alert('Failed to delete post.');
@@ -106,13 +172,9 @@ function AllPost() {
     navigate(`/updatePost/${postId}`);
   };
 
-  const handleMyPostsToggle = () => {
-    if (showMyPosts) {
-      setFilteredPosts(posts);
-    } else {
-      setFilteredPosts(posts.filter((post) => post.userID === loggedInUserID));
-    }
-    setShowMyPosts(!showMyPosts);
+  // Clicking the active view again goes back to all posts
+  const handleViewToggle = (nextView) => {
+    setView(view === nextView ? 'all' : nextView);
   };
 
   const handleLike = async (postId) => {
@@ -126,17 +188,9 @@ function AllPost() {
         params: { userID },
       });
 
-      // Update posts state
       setPosts((prevPosts) =>
         prevPosts.map((post) =>
-          post.id === postId ? { ...post, likes: response.data.likes } : post
-        )
-      );
-
-      // Update filtered posts state
-      setFilteredPosts((prevFilteredPosts) =>
-        prevFilteredPosts.map((post) =>
-          post.id === postId ? { ...post, likes: response.data.likes } : post
+          post.id === postId ? { ...post, likeCount: response.data.likeCount, likedByViewer: !!response.data.likes?.[userID] } : post
         )
       );
     } catch (error) {
@@ -163,6 +217,31 @@ function AllPost() {
     }
   };
 
+  const setPostComments = (postId, update) => {
+    setPosts((prevPosts) =>
+      prevPosts.map((post) => (post.id === postId ? { ...post, comments: update(post.comments || []) } : post))
+    );
+  };
+
+  // Comments are paged separately from posts and only fetched once a post's comments are opened
+  const fetchComments = async (postId, cursor) => {
+    try {
+      const response = await axios.get(`http://localhost:8080/posts/${postId}/comments`, { params: { cursor } });
+      setPostComments(postId, (comments) => (cursor ? [...comments, ...response.data.items] : response.data.items));
+      setCommentCursors((prevCursors) => ({ ...prevCursors, [postId]: response.data.nextCursor }));
+    } catch (error) {
+      console.error('Error fetching comments:', error);
+    }
+  };
+
+  const toggleComments = (post) => {
+    const opening = !openComments[post.id];
+    setOpenComments({ ...openComments, [post.id]: opening });
+    if (opening && !post.comments) {
+      fetchComments(post.id);
+    }
+  };
+
   const handleAddComment = async (postId) => {
     const userID = localStorage.getItem('userID');
     if (!userID) {
@@ -181,12 +260,13 @@ function AllPost() {
       });
       setPosts((prevPosts) =>
         prevPosts.map((post) =>
-          post.id === postId ? { ...post, comments: response.data.comments } : post
-        )
-      );
-      setFilteredPosts((prevFilteredPosts) =>
-        prevFilteredPosts.map((post) =>
-          post.id === postId ? { ...post, comments: response.data.comments } : post
+          post.id === postId
+            ? {
+                ...post,
+                comments: [response.data, ...(post.comments || [])],
+                commentCount: (post.commentCount || 0) + 1,
+              }
+            : post
         )
       );
       setNewComment({ ...newComment, [postId]: '' });
@@ -204,14 +284,11 @@ function AllPost() {
       setPosts((prevPosts) =>
         prevPosts.map((post) =>
           post.id === postId
-            ? { ...post, comments: post.comments.filter((comment) => comment.id !== commentId) }
-            : post
-        )
-      );
-      setFilteredPosts((prevFilteredPosts) =>
-        prevFilteredPosts.map((post) =>
-          post.id === postId
-            ? { ...post, comments: post.comments.filter((comment) => comment.id !== commentId) }
+            ? {
+                ...post,
+                comments: post.comments.filter((comment) => comment.id !== commentId),
+                commentCount: Math.max((post.commentCount || 0) - 1, 0),
+              }
             : post
         )
       );
@@ -239,18 +316,6 @@ function AllPost() {
             : post
         )
       );
-      setFilteredPosts((prevFilteredPosts) =>
-        prevFilteredPosts.map((post) =>
-          post.id === postId
-            ? {
-                ...post,
-                comments: post.comments.map((comment) =>
-                  comment.id === commentId ? { ...comment, content } : comment
-                ),
-              }
-            : post
-        )
-      );
       setEditingComment({});
     } catch (error) {
       console.error('Error saving comment:', error);
@@ -258,17 +323,15 @@ function AllPost() {
   };
 
   const handleSearch = (e) => {
-    const query = e.target.value.toLowerCase();
-    setSearchQuery(query);
-    const filtered = posts.filter(
-      (post) =>
-        post.title.toLowerCase().includes(query) ||
-        post.description.toLowerCase().includes(query) ||
-        (post.category && post.category.toLowerCase().includes(query))
-    );
-    setFilteredPosts(filtered);
+    setSearchQuery(e.target.value);
   };
 
+  // Searches all posts on the server, not just the ones loaded so far
+  useEffect(() => {
+    const timer = setTimeout(() => setSubmittedQuery(searchQuery.trim()), 300);
+    return () => clearTimeout(timer);
+  }, [searchQuery]);
+
   const openModal = (mediaUrl) => {
     setSelectedMedia(mediaUrl);
     setIsModalOpen(true);
@@ -291,6 +354,22 @@ function AllPost() {
             value={searchQuery}
             onChange={handleSearch}
           />
+          {loggedInUserID && (
+            <>
+              <button
+                className={view === 'following' ? 'view-toggle active' : 'view-toggle'}
+                onClick={() => handleViewToggle('following')}
+              >
+                Following
+              </button>
+              <button
+                className={view === 'mine' ? 'view-toggle active' : 'view-toggle'}
+                onClick={() => handleViewToggle('mine')}
+              >
+                My posts
+              </button>
+            </>
+          )}
           <button 
             className="create-button" 
             style={{ background: "linear-gradient(45deg, #a18cd1 0%, #fbc2eb 100%)" }}
@@ -301,7 +380,7 @@ function AllPost() {
           </button>
         </div>
         <div className="posts-grid">
-          {filteredPosts.length === 0 ? (
+          {posts.length === 0 ? (
             <div className="empty-state">
               <div className="empty-icon"></div>
               <h3>No posts found</h3>
@@ -315,7 +394,7 @@ function AllPost() {
               </button>
             </div>
           ) : (
-            filteredPosts.map((post) => (
+            posts.map((post) => (
               <div key={post.id} className="post-card">
                 <div className="post-header">
                   <div className="user-info">
@@ -364,7 +443,7 @@ function AllPost() {
                               <source src={`http://localhost:8080${mediaUrl}`} type="video/mp4" />
                             </video>
                           ) : (
-                            <img src={`http://localhost:8080${mediaUrl}`} alt="Post Media" />
+                            <img src={`http://localhost:8080${mediaUrl}?w=640`} alt="Post Media" />
                           )}
                           {post.media.length > 4 && index === 3 && (
                             <div className="overlay-text">+{post.media.length - 4}</div>
@@ -376,108 +455,122 @@ function AllPost() {
                 </div>
                 <div className="post-engagement">
                   <button 
-                    className={`engagement-button`}
+                    className={`engagement-button ${post.likedByViewer ? 'liked' : ''}`}
                     onClick={() => handleLike(post.id)}
                   >
                     <BiSolidLike />
-                    <span>{Object.values(post.likes || {}).filter(liked => liked).length}</span>
+                    <span>{post.likeCount}</span>
                   </button>
-                  <button className="engagement-button">
+                  <button className="engagement-button" onClick={() => toggleComments(post)}>
                     <FaCommentAlt className="engagement-icon" />
-                    <span>{post.comments?.length || 0}</span>
+                    <span>{post.commentCount || 0}</span>
                   </button>
                 </div>
-                <div className="comment-section">
-                  <div className="comment-input">
-                    <input
-                      type="text"
-                      placeholder="Write a comment..."
-                      value={newComment[post.id] || ''}
-                      onChange={(e) => setNewComment({ ...newComment, [post.id]: e.target.value })}
-                    />
-                    <button 
-                      className="send-button" 
-                      onClick={() => handleAddComment(post.id)}
-                      disabled={!newComment[post.id]} 
-                    >
-                      <IoSend />
-                    </button>
-                  </div>
-                  {post.comments && post.comments.length > 0 && (
-                    <div className="comments-list">
-                      {post.comments.map((comment) => (
-                        <div key={comment.id} className="comment">
-                          <div className="comment-avatar">
-                            {comment.userFullName?.charAt(0) || 'U'}
-                          </div>
-                          <div className="comment-body">
-                            <p className="comment-author">{comment.userFullName}</p>
-                            {editingComment.id === comment.id ? (
-                              <input
-                                type="text"
-                                className="edit-comment"
-                                value={editingComment.content}
-                                onChange={(e) => setEditingComment({ ...editingComment, content: e.target.value })}
-                                autoFocus
-                              />
-                            ) : (
-                              <p className="comment-text">{comment.content}</p>
-                            )}
-                          </div>
-                          <div className="comment-actions">
-                            {comment.userID === loggedInUserID && (
-                              <>
-                                {editingComment.id === comment.id ? (
-                                  <>
-                                    <button 
-                                      className="icon-button save" 
-                                      onClick={() => handleSaveComment(post.id, comment.id, editingComment.content)}
-                                    >
-                                      <FiSave />
-                                    </button>
-                                    <button 
-                                      className="icon-button cancel" 
-                                      onClick={() => setEditingComment({})}
-                                    >
-                                      <TbPencilCancel />
-                                    </button>
-                                  </>
-                                ) : (
-                                  <>
-                                    <button 
-                                      className="icon-button edit" 
-                                      onClick={() => setEditingComment({ id: comment.id, content: comment.content })}
-                                    >
-                                      <GrUpdate />
-                                    </button>
-                                    <button 
-                                      className="icon-button delete" 
-                                      onClick={() => handleDeleteComment(post.id, comment.id)}
-                                    >
-                                      <MdDelete />
-                                    </button>
-                                  </>
-                                )}
-                              </>
-                            )}
-                            {post.userID === loggedInUserID && comment.userID !== loggedInUserID && (
-                              <button
-                                className="icon-button delete"
-                                onClick={() => handleDeleteComment(post.id, comment.id)}
-                              >
-                                <MdDelete />
-                              </button>
-                            )}
-                          </div>
-                        </div>
-                      ))}
+                {openComments[post.id] && (
+                  <div className="comment-section">
+                    <div className="comment-input">
+                      <input
+                        type="text"
+                        placeholder="Write a comment..."
+                        value={newComment[post.id] || ''}
+                        onChange={(e) => setNewComment({ ...newComment, [post.id]: e.target.value })}
+                      />
+                      <button 
+                        className="send-button" 
+                        onClick={() => handleAddComment(post.id)}
+                        disabled={!newComment[post.id]} 
+                      >
+                        <IoSend />
+                      </button>
                     </div>
-                  )}
-                </div>
+                    {post.comments && post.comments.length > 0 && (
+                      <div className="comments-list">
+                        {post.comments.map((comment) => (
+                          <div key={comment.id} className="comment">
+                            <div className="comment-avatar">
+                              {comment.userFullName?.charAt(0) || 'U'}
+                            </div>
+                            <div className="comment-body">
+                              <p className="comment-author">{comment.userFullName}</p>
+                              {editingComment.id === comment.id ? (
+                                <input
+                                  type="text"
+                                  className="edit-comment"
+                                  value={editingComment.content}
+                                  onChange={(e) => setEditingComment({ ...editingComment, content: e.target.value })}
+                                  autoFocus
+                                />
+                              ) : (
+                                <p className="comment-text">{comment.content}</p>
+                              )}
+                            </div>
+                            <div className="comment-actions">
+                              {comment.userID === loggedInUserID && (
+                                <>
+                                  {editingComment.id === comment.id ? (
+                                    <>
+                                      <button 
+                                        className="icon-button save" 
+                                        onClick={() => handleSaveComment(post.id, comment.id, editingComment.content)}
+                                      >
+                                        <FiSave />
+                                      </button>
+                                      <button 
+                                        className="icon-button cancel" 
+                                        onClick={() => setEditingComment({})}
+                                      >
+                                        <TbPencilCancel />
+                                      </button>
+                                    </>
+                                  ) : (
+                                    <>
+                                      <button 
+                                        className="icon-button edit" 
+                                        onClick={() => setEditingComment({ id: comment.id, content: comment.content })}
+                                      >
+                                        <GrUpdate />
+                                      </button>
+                                      <button 
+                                        className="icon-button delete" 
+                                        onClick={() => handleDeleteComment(post.id, comment.id)}
+                                      >
+                                        <MdDelete />
+                                      </button>
+                                    </>
+                                  )}
+                                </>
+                              )}
+                              {post.userID === loggedInUserID && comment.userID !== loggedInUserID && (
+                                <button
+                                  className="icon-button delete"
+                                  onClick={() => handleDeleteComment(post.id, comment.id)}
+                                >
+                                  <MdDelete />
+                                </button>
+                              )}
+                            </div>
+                          </div>
+                        ))}
+                      </div>
+                    )}
+                    {commentCursors[post.id] && (
+                      <button className="more-comments" onClick={() => fetchComments(post.id, commentCursors[post.id])}>
+                        More comments
+                      </button>
+                    )}
+                  </div>
+                )}
               </div>
             ))
           )}
         </div>
+        {nextCursor && (
+          <div className="load-more">
+            <button className="primary-button" onClick={handleLoadMore} disabled={loadingMore}>
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          </div>
+        )}
       </div>
       <Modal
         isOpen={isModalOpen}
@@ -19,6 +19,8 @@ Modal.setAppElement('#root');
 function MyAllPost() {
   const [posts, setPosts] = useState([]);
   const [filteredPosts, setFilteredPosts] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [postOwners, setPostOwners] = useState({});
   const [showMyPosts, setShowMyPosts] = useState(false);
   const [isModalOpen, setIsModalOpen] = useState(false);
@@ -26,18 +28,23 @@ function MyAllPost() {
   const [followedUsers, setFollowedUsers] = useState([]);
   const [newComment, setNewComment] = useState({});
   const [editingComment, setEditingComment] = useState({});
+  const [openComments, setOpenComments] = useState({});
+  const [commentCursors, setCommentCursors] = useState({});
   const navigate = useNavigate();
   const loggedInUserID = localStorage.getItem('userID');
 
   useEffect(() => {
     const fetchPosts = async () => {
       try {
-        const response = await axios.get('http://localhost:8080/posts');
         const userID = localStorage.getItem('userID');
-        const userPosts = response.data.filter((post) => post.userID === userID);
+        const response = await axios.get(`http://localhost:8080/posts/user/${userID}`, {
+          params: { viewerId: userID },
+        });
+        const userPosts = response.data.items;
 
         setPosts(userPosts);
         setFilteredPosts(userPosts);
+        setNextCursor(response.data.nextCursor);
 
         const userIDs = [...new Set(userPosts.map((post) => post.userID))];
         const ownerPromises = userIDs.map((userID) =>
@@ -65,6 +72,27 @@ function MyAllPost() {
     fetchPosts();
   }, []);
 
+  // Only the user's own posts are listed here, so their owner is already known
+  const handleLoadMore = async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+    setLoadingMore(true);
+    try {
+      const response = await axios.get(`http://localhost:8080/posts/user/${loggedInUserID}`, {
+        params: { cursor: nextCursor, viewerId: loggedInUserID },
+      });
+      const userPosts = response.data.items;
+      setPosts((prevPosts) => [...prevPosts, ...userPosts]);
+      setFilteredPosts((prevFilteredPosts) => [...prevFilteredPosts, ...userPosts]);
+      setNextCursor(response.data.nextCursor);
+    } catch (error) {
+      console.error('Error fetching more posts:', error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     const fetchFollowedUsers = async () => {
       const userID = localStorage.getItem('userID');
@@ -124,13 +152,13 @@ function MyAllPost() {
 
       setPosts((prevPosts) =>
         prevPosts.map((post) =>
-          post.id === postId ? { ...post, likes: response.data.likes } : post
+          post.id === postId ? { ...post, likeCount: response.data.likeCount, likedByViewer: !!response.data.likes?.[userID] } : post
         )
       );
 
       setFilteredPosts((prevFilteredPosts) =>
         prevFilteredPosts.map((post) =>
-          post.id === postId ? { ...post, likes: response.data.likes } : post
+          post.id === postId ? { ...post, likeCount: response.data.likeCount, likedByViewer: !!response.data.likes?.[userID] } : post
         )
       );
     } catch (error) {
@@ -157,6 +185,34 @@ function MyAllPost() {
     }
   };
 
+  const setPostComments = (postId, update) => {
+    setPosts((prevPosts) =>
+      prevPosts.map((post) => (post.id === postId ? { ...post, comments: update(post.comments || []) } : post))
+    );
+    setFilteredPosts((prevFilteredPosts) =>
+      prevFilteredPosts.map((post) => (post.id === postId ? { ...post, comments: update(post.comments || []) } : post))
+    );
+  };
+
+  // Comments are paged separately from posts and only fetched once a post's comments are opened
+  const fetchComments = async (postId, cursor) => {
+    try {
+      const response = await axios.get(`http://localhost:8080/posts/${postId}/comments`, { params: { cursor } });
+      setPostComments(postId, (comments) => (cursor ? [...comments, ...response.data.items] : response.data.items));
+      setCommentCursors((prevCursors) => ({ ...prevCursors, [postId]: response.data.nextCursor }));
+    } catch (error) {
+      console.error('Error fetching comments:', error);
+    }
+  };
+
+  const toggleComments = (post) => {
+    const opening = !openComments[post.id];
+    setOpenComments({ ...openComments, [post.id]: opening });
+    if (opening && !post.comments) {
+      fetchComments(post.id);
+    }
+  };
+
   const handleAddComment = async (postId) => {
     const userID = localStorage.getItem('userID');
     if (!userID) {
@@ -176,13 +232,25 @@ function MyAllPost() {
 
       setPosts((prevPosts) =>
         prevPosts.map((post) =>
-          post.id === postId ? { ...post, comments: response.data.comments } : post
+          post.id === postId
+            ? {
+                ...post,
+                comments: [response.data, ...(post.comments || [])],
+                commentCount: (post.commentCount || 0) + 1,
+              }
+            : post
         )
       );
 
       setFilteredPosts((prevFilteredPosts) =>
         prevFilteredPosts.map((post) =>
-          post.id === postId ? { ...post, comments: response.data.comments } : post
+          post.id === postId
+            ? {
+                ...post,
+                comments: [response.data, ...(post.comments || [])],
+                commentCount: (post.commentCount || 0) + 1,
+              }
+            : post
         )
       );
 
@@ -202,7 +270,11 @@ function MyAllPost() {
       setPosts((prevPosts) =>
         prevPosts.map((post) =>
           post.id === postId
-            ? { ...post, comments: post.comments.filter((comment) => comment.id !== commentId) }
+            ? {
+                ...post,
+                comments: post.comments.filter((comment) => comment.id !== commentId),
+                commentCount: Math.max((post.commentCount || 0) - 1, 0),
+              }
             : post
         )
       );
@@ -210,7 +282,11 @@ function MyAllPost() {
       setFilteredPosts((prevFilteredPosts) =>
         prevFilteredPosts.map((post) =>
           post.id === postId
-            ? { ...post, comments: post.comments.filter((comment) => comment.id !== commentId) }
+            ? {
+                ...post,
+                comments: post.comments.filter((comment) => comment.id !== commentId),
+                commentCount: Math.max((post.commentCount || 0) - 1, 0),
+              }
             : post
         )
       );
@@ -361,7 +437,7 @@ function MyAllPost() {
                               Your browser does not support the video tag.
                             </video>
                           ) : (
-                            <img src={`http://localhost:8080${mediaUrl}`} alt="Post Media" />
+                            <img src={`http://localhost:8080${mediaUrl}?w=640`} alt="Post Media" />
                           )}
                           {post.media.length > 4 && index === 3 && (
                             <div className="overlay-text">+{post.media.length - 4}</div>
@@ -373,108 +449,122 @@ function MyAllPost() {
                 </div>
                 <div className="post-engagement">
                   <button 
-                    className={`engagement-button ${post.likes?.[localStorage.getItem('userID')] ? 'liked' : ''}`}
+                    className={`engagement-button ${post.likedByViewer ? 'liked' : ''}`}
                     onClick={() => handleLike(post.id)}
                   >
                     <BiSolidLike className="engagement-icon" />
-                    <span>{Object.values(post.likes || {}).filter(liked => liked).length}</span>
+                    <span>{post.likeCount}</span>
                   </button>
-                  <button className="engagement-button">
+                  <button className="engagement-button" onClick={() => toggleComments(post)}>
                     <FaCommentAlt className="engagement-icon" />
-                    <span>{post.comments?.length || 0}</span>
+                    <span>{post.commentCount || 0}</span>
                   </button>
                 </div>
-                <div className="comment-section">
-                  <div className="comment-input">
-                    <input
-                      type="text"
-                      placeholder="Write a comment..."
-                      value={newComment[post.id] || ''}
-                      onChange={(e) => setNewComment({ ...newComment, [post.id]: e.target.value })}
-                    />
-                    <button 
-                      className="send-button" 
-                      onClick={() => handleAddComment(post.id)}
-                      disabled={!newComment[post.id]} 
-                    >
-                      <IoSend />
-                    </button>
-                  </div>
-                  {post.comments && post.comments.length > 0 && (
-                    <div className="comments-list">
-                      {post.comments.map((comment) => (
-                        <div key={comment.id} className="comment">
-                          <div className="comment-avatar">
-                            {comment.userFullName?.charAt(0) || 'U'}
-                          </div>
-                          <div className="comment-body">
-                            <p className="comment-author">{comment.userFullName}</p>
-                            {editingComment.id === comment.id ? (
-                              <input
-                                type="text"
-                                className="edit-comment"
-                                value={editingComment.content}
-                                onChange={(e) => setEditingComment({ ...editingComment, content: e.target.value })}
-                                autoFocus
-                              />
-                            ) : (
-                              <p className="comment-text">{comment.content}</p>
-                            )}
-                          </div>
-                          <div className="comment-actions">
-                            {comment.userID === loggedInUserID && (
-                              <>
-                                {editingComment.id === comment.id ? (
-                                  <>
-                                    <button 
-                                      className="icon-button save" 
-                                      onClick={() => handleSaveComment(post.id, comment.id, editingComment.content)}
-                                    >
-                                      <FiSave />
-                                    </button>
-                                    <button 
-                                      className="icon-button cancel" 
-                                      onClick={() => setEditingComment({})}
-                                    >
-                                      <TbPencilCancel />
-                                    </button>
-                                  </>
-                                ) : (
-                                  <>
-                                    <button 
-                                      className="icon-button edit" 
-                                      onClick={() => setEditingComment({ id: comment.id, content: comment.content })}
-                                    >
-                                      <GrUpdate />
-                                    </button>
-                                    <button 
-                                      className="icon-button delete" 
-                                      onClick={() => handleDeleteComment(post.id, comment.id)}
-                                    >
-                                      <MdDelete />
-                                    </button>
-                                  </>
-                                )}
-                              </>
-                            )}
-                            {post.userID === loggedInUserID && comment.userID !== loggedInUserID && (
-                              <button
-                                className="icon-button delete"
-                                onClick={() => handleDeleteComment(post.id, comment.id)}
-                              >
-                                <MdDelete />
-                              </button>
-                            )}
-                          </div>
-                        </div>
-                      ))}
+                {openComments[post.id] && (
+                  <div className="comment-section">
+                    <div className="comment-input">
+                      <input
+                        type="text"
+                        placeholder="Write a comment..."
+                        value={newComment[post.id] || ''}
+                        onChange={(e) => setNewComment({ ...newComment, [post.id]: e.target.value })}
+                      />
+                      <button 
+                        className="send-button" 
+                        onClick={() => handleAddComment(post.id)}
+                        disabled={!newComment[post.id]} 
+                      >
+                        <IoSend />
+                      </button>
                     </div>
-                  )}
-                </div>
+                    {post.comments && post.comments.length > 0 && (
+                      <div className="comments-list">
+                        {post.comments.map((comment) => (
+                          <div key={comment.id} className="comment">
+                            <div className="comment-avatar">
+                              {comment.userFullName?.charAt(0) || 'U'}
+                            </div>
+                            <div className="comment-body">
+                              <p className="comment-author">{comment.userFullName}</p>
+                              {editingComment.id === comment.id ? (
+                                <input
+                                  type="text"
+                                  className="edit-comment"
+                                  value={editingComment.content}
+                                  onChange={(e) => setEditingComment({ ...editingComment, content: e.target.value })}
+                                  autoFocus
+                                />
+                              ) : (
+                                <p className="comment-text">{comment.content}</p>
+                              )}
+                            </div>
+                            <div className="comment-actions">
+                              {comment.userID === loggedInUserID && (
+                                <>
+                                  {editingComment.id === comment.id ? (
+                                    <>
+                                      <button 
+                                        className="icon-button save" 
+                                        onClick={() => handleSaveComment(post.id, comment.id, editingComment.content)}
+                                      >
+                                        <FiSave />
+                                      </button>
+                                      <button 
+                                        className="icon-button cancel" 
+                                        onClick={() => setEditingComment({})}
+                                      >
+                                        <TbPencilCancel />
+                                      </button>
+                                    </>
+                                  ) : (
+                                    <>
+                                      <button 
+                                        className="icon-button edit" 
+                                        onClick={() => setEditingComment({ id: comment.id, content: comment.content })}
+                                      >
+                                        <GrUpdate />
+                                      </button>
+                                      <button 
+                                        className="icon-button delete" 
+                                        onClick={() => handleDeleteComment(post.id, comment.id)}
+                                      >
+                                        <MdDelete />
+                                      </button>
+                                    </>
+                                  )}
+                                </>
+                              )}
+                              {post.userID === loggedInUserID && comment.userID !== loggedInUserID && (
+                                <button
+                                  className="icon-button delete"
+                                  onClick={() => handleDeleteComment(post.id, comment.id)}
+                                >
+                                  <MdDelete />
+                                </button>
+                              )}
+                            </div>
+                          </div>
+                        ))}
+                      </div>
+                    )}
+                    {commentCursors[post.id] && (
+                      <button className="more-comments" onClick={() => fetchComments(post.id, commentCursors[post.id])}>
+                        More comments
+                      </button>
+                    )}
+                  </div>
+                )}
               </div>
             ))
           )}
         </div>
+        {nextCursor && (
+          <div className="load-more">
+            <button className="primary-button" onClick={handleLoadMore} disabled={loadingMore}>
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          </div>
+        )}
       </div>
 
       {/* Modal for displaying full media */}
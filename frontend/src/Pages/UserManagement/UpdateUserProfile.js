@@ -180,10 +180,9 @@ function UpdateUserProfile() {
                 className="form-input"
                 type="password"
                 name="password"
-                placeholder="Enter your password"
-                value={formData.password}
+                placeholder="Leave blank to keep your current password"
+                value={formData.password || ''}
                 onChange={handleInputChange}
-                required
               />
             </div>
 